@@ -0,0 +1,36 @@
+#!/bin/sh
+
+SCRIPT="$0"
+
+while [ -h "$SCRIPT" ] ; do
+  ls=`ls -ld "$SCRIPT"`
+  link=`expr "$ls" : '.*-> \(.*\)$'`
+  if expr "$link" : '/.*' > /dev/null; then
+    SCRIPT="$link"
+  else
+    SCRIPT=`dirname "$SCRIPT"`/"$link"
+  fi
+done
+
+if [ ! -d "${APP_DIR}" ]; then
+  APP_DIR=`dirname "$SCRIPT"`/..
+  APP_DIR=`cd "${APP_DIR}"; pwd`
+fi
+
+root=./modules/swagger-codegen-distribution/pom.xml
+
+# gets version of swagger-codegen
+version=$(sed '/<project>/,/<\/project>/d;/<version>/!d;s/ *<\/\?version> *//g' $root | sed -n '2p' | sed -e 's,.*<version>\([^<]*\)</version>.*,\1,g')
+
+executable="./modules/swagger-codegen-distribution/target/swagger-codegen-distribution-$version.jar"
+
+if [ ! -f "$executable" ]
+then
+  mvn clean package
+fi
+
+# starts a generator which the other scripts use when CODEGEN_DAEMON is set to its port
+export JAVA_OPTS="${JAVA_OPTS} -XX:MaxPermSize=256M -Xmx1024M -DloggerPath=conf/log4j.properties"
+port=${CODEGEN_DAEMON:-7321}
+
+java $JAVA_OPTS -jar $executable --daemon $port "$@"
@@ -0,0 +1,86 @@
+package com.wordnik.swagger.codegen.benchmarks;
+
+import com.wordnik.swagger.codegen.*;
+import com.wordnik.swagger.models.*;
+import com.wordnik.swagger.models.parameters.Parameter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts every definition, operation and parameter of a spec with the
+ * DefaultCodegen of a language.  The resolution cache is cleared on every
+ * invocation, so each one costs as much as it does in a generation run
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodegenBenchmark {
+  @Param({"petstore.json", "wordnik.json", "synthetic:100", "synthetic:1000", "synthetic:10000"})
+  public String spec;
+
+  @Param({"java"})
+  public String language;
+
+  DefaultCodegen config;
+  Map<String, Model> definitions;
+  List<String> paths = new ArrayList<String>();
+  List<String> methods = new ArrayList<String>();
+  List<Operation> operations = new ArrayList<Operation>();
+  List<Parameter> parameters = new ArrayList<Parameter>();
+
+  @Setup
+  public void setup() throws Exception {
+    Swagger swagger = Specs.load(spec);
+    config = (DefaultCodegen) Codegen.getConfig(language);
+    config.processOpts();
+    definitions = swagger.getDefinitions();
+    for(String resourcePath : swagger.getPaths().keySet()) {
+      Path path = swagger.getPaths().get(resourcePath);
+      addOperation(resourcePath, "get", path.getGet());
+      addOperation(resourcePath, "put", path.getPut());
+      addOperation(resourcePath, "post", path.getPost());
+      addOperation(resourcePath, "delete", path.getDelete());
+      addOperation(resourcePath, "patch", path.getPatch());
+      addOperation(resourcePath, "options", path.getOptions());
+    }
+  }
+
+  void addOperation(String path, String method, Operation operation) {
+    if(operation == null)
+      return;
+    paths.add(path);
+    methods.add(method);
+    operations.add(operation);
+    if(operation.getParameters() != null)
+      parameters.addAll(operation.getParameters());
+  }
+
+  @Benchmark
+  public void fromModel(Blackhole bh) {
+    config.clearResolutionCache();
+    for(String name : definitions.keySet())
+      bh.consume(config.fromModel(name, definitions.get(name)));
+  }
+
+  @Benchmark
+  public void fromOperation(Blackhole bh) {
+    config.clearResolutionCache();
+    for(int i = 0; i < operations.size(); i++)
+      bh.consume(config.fromOperation(paths.get(i), methods.get(i), operations.get(i)));
+  }
+
+  @Benchmark
+  public void fromParameter(Blackhole bh) {
+    config.clearResolutionCache();
+    Set<String> imports = new HashSet<String>();
+    for(Parameter parameter : parameters)
+      bh.consume(config.fromParameter(parameter, imports));
+  }
+}
@@ -0,0 +1,64 @@
+package com.wordnik.swagger.codegen.benchmarks;
+
+import com.wordnik.swagger.codegen.*;
+import com.wordnik.swagger.models.Swagger;
+
+import org.apache.commons.io.FileUtils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full generate() runs into an empty output folder, parsing excluded
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerateBenchmark {
+  @Param({"petstore.json", "wordnik.json", "synthetic:100", "synthetic:1000", "synthetic:10000"})
+  public String spec;
+
+  @Param({"java"})
+  public String language;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  Swagger swagger;
+  File output;
+  Codegen codegen;
+
+  @Setup
+  public void parse() throws Exception {
+    swagger = Specs.load(spec);
+  }
+
+  @Setup(Level.Iteration)
+  public void setup() throws Exception {
+    output = File.createTempFile("codegen-benchmark", "");
+    output.delete();
+    CodegenConfig config = Codegen.getConfig(language);
+    config.setOutputDir(output.getAbsolutePath());
+    ClientOptInput input = new ClientOptInput().opts(new ClientOpts()).swagger(swagger);
+    input.setConfig(config);
+    codegen = new Codegen();
+    codegen.setThreads(threads);
+    codegen.opts(input);
+  }
+
+  @Benchmark
+  public List<File> generate() {
+    return codegen.generate();
+  }
+
+  @TearDown(Level.Iteration)
+  public void cleanup() throws Exception {
+    FileUtils.deleteDirectory(output);
+  }
+}
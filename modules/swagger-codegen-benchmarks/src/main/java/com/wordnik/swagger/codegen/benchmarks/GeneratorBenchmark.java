@@ -0,0 +1,92 @@
+package com.wordnik.swagger.codegen.benchmarks;
+
+import com.wordnik.swagger.codegen.*;
+import com.wordnik.swagger.models.*;
+
+import com.samskivert.mustache.Template;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DefaultGenerator steps between parsing and writing: grouping the
+ * operations, building the template data of every model, and compiling and
+ * executing the templates of a language
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+  @Param({"petstore.json", "wordnik.json", "synthetic:100", "synthetic:1000", "synthetic:10000"})
+  public String spec;
+
+  @Param({"java"})
+  public String language;
+
+  Swagger swagger;
+  CodegenConfig config;
+  DefaultGenerator generator;
+  List<String> templates = new ArrayList<String>();
+  List<Map<String, Object>> models = new ArrayList<Map<String, Object>>();
+
+  @Setup
+  public void setup() throws Exception {
+    swagger = Specs.load(spec);
+    config = Codegen.getConfig(language);
+    config.processOpts();
+    ClientOptInput input = new ClientOptInput().opts(new ClientOpts()).swagger(swagger);
+    input.setConfig(config);
+    generator = new DefaultGenerator();
+    generator.opts(input);
+    templates.addAll(config.modelTemplateFiles().keySet());
+    templates.addAll(config.apiTemplateFiles().keySet());
+    for(String name : swagger.getDefinitions().keySet())
+      models.add(processModel(name));
+  }
+
+  Map<String, Object> processModel(String name) {
+    Map<String, Model> definition = new HashMap<String, Model>();
+    definition.put(name, swagger.getDefinitions().get(name));
+    Map<String, Object> data = generator.processModels(config, definition);
+    data.putAll(config.additionalProperties());
+    return data;
+  }
+
+  @Benchmark
+  public Object processPaths() {
+    ((DefaultCodegen) config).clearResolutionCache();
+    return generator.processPaths(swagger.getPaths());
+  }
+
+  @Benchmark
+  public void processModels(Blackhole bh) {
+    ((DefaultCodegen) config).clearResolutionCache();
+    for(String name : swagger.getDefinitions().keySet())
+      bh.consume(processModel(name));
+  }
+
+  /**
+   * Compiles the model and api templates and their partials through the
+   * generator, bypassing the cache of compiled templates
+   */
+  @Benchmark
+  public void compileTemplates(Blackhole bh) {
+    for(String name : templates)
+      bh.consume(generator.compileTemplateUncached(name));
+  }
+
+  @Benchmark
+  public void executeModelTemplates(Blackhole bh) {
+    for(String name : config.modelTemplateFiles().keySet()) {
+      Template template = generator.compileTemplate(name);
+      for(Map<String, Object> data : models)
+        bh.consume(template.execute(data));
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.wordnik.swagger.codegen.benchmarks;
+
+import com.wordnik.swagger.codegen.SyntheticSpec;
+import com.wordnik.swagger.models.Swagger;
+import com.wordnik.swagger.util.Json;
+
+import io.swagger.parser.SwaggerParser;
+
+import java.io.InputStream;
+
+/**
+ * Specs the benchmarks run against: <code>petstore.json</code> and
+ * <code>wordnik.json</code> from the core test resources, or
+ * <code>synthetic:N</code> for a generated spec with N models and N operations
+ */
+public class Specs {
+  public static final String SYNTHETIC = "synthetic:";
+
+  public static Swagger load(String spec) throws Exception {
+    if(spec.startsWith(SYNTHETIC))
+      return synthetic(Integer.parseInt(spec.substring(SYNTHETIC.length())));
+    InputStream in = Specs.class.getClassLoader().getResourceAsStream("specs/" + spec);
+    if(in == null)
+      throw new IllegalArgumentException("unknown spec " + spec);
+    try {
+      return new SwaggerParser().read(Json.mapper().readTree(in));
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * A spec with <code>size</code> models and <code>size</code> operations
+   * in tags of 20 operations
+   */
+  public static Swagger synthetic(int size) {
+    return new SyntheticSpec()
+      .models(size)
+      .tags(Math.max(size / 20, 1))
+      .operationsPerTag(Math.min(size, 20))
+      .build();
+  }
+}
@@ -0,0 +1,178 @@
+package com.wordnik.swagger.codegen;
+
+import com.wordnik.swagger.models.Swagger;
+import com.wordnik.swagger.models.auth.AuthorizationValue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Generates several languages from one spec.  The spec is read and parsed
+ * once; every language gets its own Swagger model converted from the parsed
+ * tree, since generators modify the model, and the languages run
+ * concurrently on a pool.
+ *
+ * Each language is written to <code>outputFolder/&lt;language&gt;</code>,
+ * or to its config's default folder when no output folder is set.  With an
+ * output sink all languages go into the same sink.
+ */
+public class BatchGenerator {
+  protected final String location;
+  protected final JsonNode spec;
+  protected final List<AuthorizationValue> auths;
+  protected final boolean resolve;
+  protected int threads = Runtime.getRuntime().availableProcessors();
+  protected String outputFolder = null;
+  protected OutputSink outputSink = null;
+  protected ClientOpts clientOpts = new ClientOpts();
+  protected final Map<String, Exception> failures = new ConcurrentHashMap<String, Exception>();
+
+  /**
+   * Reads the spec at a url or file through the SpecCache
+   */
+  public BatchGenerator(String location, List<AuthorizationValue> auths) throws IOException {
+    this.location = location;
+    this.auths = auths;
+    this.resolve = true;
+    JsonNode tree = SpecCache.getInstance().readTree(location, auths);
+    // anything but Swagger 2.0 is read by the SwaggerParser for every language
+    this.spec = tree != null && tree.get("swagger") != null ? tree : null;
+  }
+
+  /**
+   * Generates from an already parsed Swagger 2.0 tree, resolving remote
+   * references if asked to
+   */
+  public BatchGenerator(JsonNode spec, boolean resolve) {
+    this.location = null;
+    this.auths = null;
+    this.resolve = resolve;
+    this.spec = spec;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Languages generated at the same time, defaults to the number of processors
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  public String getOutputFolder() {
+    return outputFolder;
+  }
+
+  public void setOutputFolder(String outputFolder) {
+    this.outputFolder = outputFolder;
+  }
+
+  public OutputSink getOutputSink() {
+    return outputSink;
+  }
+
+  public void setOutputSink(OutputSink outputSink) {
+    this.outputSink = outputSink;
+  }
+
+  public ClientOpts getClientOpts() {
+    return clientOpts;
+  }
+
+  public void setClientOpts(ClientOpts clientOpts) {
+    this.clientOpts = clientOpts;
+  }
+
+  /**
+   * The languages of the last generate() that stopped early, with the
+   * exception their generator reported
+   */
+  public Map<String, Exception> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Generates every language and returns the files by language, in the
+   * order given.  Unknown languages fail before anything is generated
+   */
+  public Map<String, List<File>> generate(List<String> languages) throws Exception {
+    final Map<String, CodegenConfig> configs = new LinkedHashMap<String, CodegenConfig>();
+    for(String language : languages)
+      configs.put(language, configFor(language));
+    failures.clear();
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(configs.size(), 1)));
+    try {
+      Map<String, Future<List<File>>> futures = new LinkedHashMap<String, Future<List<File>>>();
+      for(final Map.Entry<String, CodegenConfig> entry : configs.entrySet()) {
+        futures.put(entry.getKey(), executor.submit(new Callable<List<File>>() {
+          public List<File> call() throws Exception {
+            return generate(entry.getKey(), entry.getValue());
+          }
+        }));
+      }
+      Map<String, List<File>> files = new LinkedHashMap<String, List<File>>();
+      for(Map.Entry<String, Future<List<File>>> future : futures.entrySet()) {
+        try {
+          files.put(future.getKey(), future.getValue().get());
+        }
+        catch (ExecutionException e) {
+          if(e.getCause() instanceof Exception)
+            throw (Exception) e.getCause();
+          throw e;
+        }
+      }
+      return files;
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  protected List<File> generate(String language, CodegenConfig config) {
+    Swagger swagger = swagger();
+    if(swagger == null)
+      throw new RuntimeException("unable to read the swagger spec for " + language);
+    ClientOptInput input = new ClientOptInput().opts(clientOpts).swagger(swagger);
+    input.setConfig(config);
+    DefaultGenerator generator = newGenerator(language);
+    generator.setOutputSink(outputSink);
+    List<File> files = generator.opts(input).generate();
+    if(generator.getFailure() != null)
+      failures.put(language, generator.getFailure());
+    return files;
+  }
+
+  protected CodegenConfig configFor(String language) {
+    CodegenConfig config = Codegen.getConfig(language);
+    if(outputFolder != null)
+      config.setOutputDir(outputFolder + File.separator + folderName(language));
+    return config;
+  }
+
+  /**
+   * The folder of a language below the output folder
+   */
+  protected String folderName(String language) {
+    return language;
+  }
+
+  /**
+   * Override to configure the generator of a language
+   */
+  protected DefaultGenerator newGenerator(String language) {
+    return new Codegen();
+  }
+
+  protected Swagger swagger() {
+    if(spec != null)
+      return SpecCache.getInstance().toSwagger(spec, auths, resolve);
+    return SpecCache.getInstance().read(location, auths, true);
+  }
+}
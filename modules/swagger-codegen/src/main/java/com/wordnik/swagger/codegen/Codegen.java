@@ -5,17 +5,31 @@ import com.wordnik.swagger.models.Swagger;
 import com.wordnik.swagger.models.auth.AuthorizationValue;
 import com.wordnik.swagger.util.*;
 
-import io.swagger.parser.SwaggerParser;
 
 import org.apache.commons.cli.*;
+import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Codegen extends DefaultGenerator {
-  static Map<String, CodegenConfig> configs = new HashMap<String, CodegenConfig>();
+  /**
+   * Constructors of the registered configs, keyed by name.  Every call to
+   * getConfig() returns a new instance, so concurrent generations never
+   * share outputFolder or additionalProperties
+   */
+  static Map<String, Constructor<? extends CodegenConfig>> configs = new ConcurrentHashMap<String, Constructor<? extends CodegenConfig>>();
   static String configString;
-  static {
+
+  /**
+   * Scans the registered configs once.  This is deferred until a config is
+   * needed, so forwarding a run to a daemon doesn't pay for it
+   */
+  static synchronized void loadConfigs() {
+    if(configString != null)
+      return;
     List<CodegenConfig> extensions = getExtensions();
     StringBuilder sb = new StringBuilder();
 
@@ -23,9 +37,14 @@ public class Codegen extends DefaultGenerator {
       if(sb.toString().length() != 0)
         sb.append(", ");
       sb.append(config.getName());
-      configs.put(config.getName(), config);
-      configString = sb.toString();
+      try {
+        configs.put(config.getName(), config.getClass().getConstructor());
+      }
+      catch (NoSuchMethodException e) {
+        System.out.println("skipping " + config.getName() + ", it has no public no-arg constructor");
+      }
     }
+    configString = sb.toString();
   }
 
   static String debugInfoOptions = "\nThe following additional debug options are available for all codegen targets:" +
@@ -33,22 +52,85 @@ public class Codegen extends DefaultGenerator {
     "\n -DdebugModels prints models passed to the template engine" +
     "\n -DdebugOperations prints operations passed to the template engine" +
     "\n -DdebugSupportingFiles prints additional data passed to the template engine";
+  /**
+   * Runs a generation, or forwards it to the daemon on the port in the
+   * codegen.daemon system property or the CODEGEN_DAEMON environment
+   * variable.  <code>--daemon &lt;port&gt;</code> starts that daemon
+   */
   public static void main(String[] args) {
+    if(args.length > 0 && "--daemon".equals(args[0])) {
+      CodegenDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    Integer port = daemonPort(System.getProperty("codegen.daemon", System.getenv("CODEGEN_DAEMON")));
+    if(port != null) {
+      Integer status = CodegenDaemon.forward(port, args);
+      if(status != null) {
+        if(status != 0)
+          System.exit(status);
+        return;
+      }
+      System.err.println("no codegen daemon on port " + port + ", generating locally");
+    }
+    run(args, null);
+  }
 
-    StringBuilder sb = new StringBuilder();
+  /**
+   * The daemon port set for this run, or null when there is none or it isn't
+   * a valid port, in which case the run is generated locally
+   */
+  public static Integer daemonPort(String daemon) {
+    if(daemon == null || daemon.trim().length() == 0)
+      return null;
+    try {
+      int port = Integer.parseInt(daemon.trim());
+      if(port > 0 && port <= 65535)
+        return port;
+    }
+    catch (NumberFormatException e) {
+    }
+    System.err.println("ignoring codegen daemon port " + daemon.trim() + ", generating locally");
+    return null;
+  }
+
+  /**
+   * Runs the generator for a command line and returns 0 on success.  Relative
+   * paths are resolved against the given directory, or the working directory
+   * when it is null
+   */
+  public static int run(String[] args, final File directory) {
+    loadConfigs();
 
     Options options = new Options();
     options.addOption("h", "help", false, "shows this message");
-    options.addOption("l", "lang", true, "client language to generate.\nAvailable languages include:\n\t[" + configString + "]");
+    options.addOption("l", "lang", true, "client language to generate, or a comma separated list of languages which are generated concurrently into <output>/<language>.\nAvailable languages include:\n\t[" + configString + "]");
     options.addOption("o", "output", true, "where to write the generated files");
     options.addOption("i", "input-spec", true, "location of the swagger spec, as URL or file");
     options.addOption("t", "template-dir", true, "folder containing the template files");
     options.addOption("d", "debug-info", false, "prints additional info for debugging");
     options.addOption("a", "auth", false, "addes authorization headers when fetching the swagger definitions remotely. Pass in a URL-encoded string of name:header with a comma separating multiple values");
+    options.addOption(null, "additional-properties", true, "options passed to the templates as a comma separated list of name=value pairs, for example lazyLists=true");
+    options.addOption(null, "threads", true, "number of threads used to render models and apis, defaults to 1");
+    options.addOption(null, "incremental", false, "only renders files whose definition, template or options changed since the last run");
+    options.addOption(null, "atomic-writes", false, "writes every file through a temp file and a rename");
+    options.addOption(null, "stream-output", false, "renders templates directly into the output files");
+    options.addOption(null, "profile", false, "prints the time and memory spent per phase, template, model and operation");
+    options.addOption(null, "profile-output", true, "writes the profile as JSON to a file, implies --profile");
+    options.addOption(null, "profile-top", true, "number of templates, models and operations listed in the profile, defaults to 10");
+    options.addOption(null, "daemon", true, "keeps a generator running on this loopback port, must be the first option. Runs are forwarded to it when CODEGEN_DAEMON is set to the port");
 
     ClientOptInput clientOptInput = new ClientOptInput();
     ClientOpts clientOpts = new ClientOpts();
     Swagger swagger = null;
+    List<String> languages = null;
+    String outputFolder = null;
+    int threads = 1;
+    boolean incremental = false;
+    boolean atomicWrites = false;
+    boolean streamOutput = false;
+    boolean profile = false;
+    String profileOutput = null;
+    int profileTop = 10;
 
     CommandLine cmd = null;
     try {
@@ -59,50 +141,169 @@ public class Codegen extends DefaultGenerator {
       if (cmd.hasOption("d")) {
         usage(options);
         System.out.println(debugInfoOptions);
-        return;
+        return 0;
       }
       if (cmd.hasOption("a"))
         clientOptInput.setAuth(cmd.getOptionValue("a"));
-      if (cmd.hasOption("l"))
-        clientOptInput.setConfig(getConfig(cmd.getOptionValue("l")));
+      if (cmd.hasOption("l")) {
+        languages = Arrays.asList(cmd.getOptionValue("l").trim().split("\\s*,\\s*"));
+        clientOptInput.setConfig(getConfig(languages.get(0)));
+      }
       else {
         usage(options);
-        return;
+        return 1;
       }
-      if (cmd.hasOption("o"))
-        clientOptInput.getConfig().setOutputDir(cmd.getOptionValue("o"));
+      if (cmd.hasOption("o")) {
+        outputFolder = resolve(directory, cmd.getOptionValue("o"));
+        clientOptInput.getConfig().setOutputDir(outputFolder);
+      }
+      else if (directory != null)
+        clientOptInput.getConfig().setOutputDir(resolve(directory, clientOptInput.getConfig().outputFolder()));
       if (cmd.hasOption("h")) {
         if(cmd.hasOption("l")) {
-          config = getConfig(String.valueOf(cmd.getOptionValue("l")));
+          config = getConfig(languages.get(0));
           if(config != null) {
             options.addOption("h", "help", true, config.getHelp());
             usage(options);
-            return;
+            return 0;
           }
         }
         usage(options);
-        return;
+        return 0;
       }
-      if (cmd.hasOption("i"))
-        swagger = new SwaggerParser().read(cmd.getOptionValue("i"), clientOptInput.getAuthorizationValues(), true);
+      if (cmd.hasOption("i") && languages.size() == 1)
+        swagger = SpecCache.getInstance().read(resolve(directory, cmd.getOptionValue("i")), clientOptInput.getAuthorizationValues(), true);
       if (cmd.hasOption("t"))
-        clientOpts.getProperties().put("templateDir", String.valueOf(cmd.getOptionValue("t")));
+        clientOpts.getProperties().put("templateDir", resolve(directory, String.valueOf(cmd.getOptionValue("t"))));
+      if (cmd.hasOption("additional-properties")) {
+        for(String property : cmd.getOptionValue("additional-properties").split(",")) {
+          int split = property.indexOf('=');
+          if(split > 0)
+            clientOpts.getProperties().put(property.substring(0, split).trim(), property.substring(split + 1).trim());
+        }
+      }
+      if (cmd.hasOption("threads"))
+        threads = Integer.parseInt(cmd.getOptionValue("threads"));
+      if (cmd.hasOption("incremental"))
+        incremental = true;
+      if (cmd.hasOption("atomic-writes"))
+        atomicWrites = true;
+      if (cmd.hasOption("stream-output"))
+        streamOutput = true;
+      if (cmd.hasOption("profile"))
+        profile = true;
+      if (cmd.hasOption("profile-output")) {
+        profile = true;
+        profileOutput = resolve(directory, cmd.getOptionValue("profile-output"));
+      }
+      if (cmd.hasOption("profile-top"))
+        profileTop = Integer.parseInt(cmd.getOptionValue("profile-top"));
     }
     catch (Exception e) {
       usage(options);
-      return;
+      return 1;
     }
     try{
+      if(languages.size() > 1) {
+        if(!cmd.hasOption("i")) {
+          usage(options);
+          return 1;
+        }
+        final int generatorThreads = threads;
+        final boolean incrementalRun = incremental;
+        final boolean atomic = atomicWrites;
+        final boolean stream = streamOutput;
+        final Map<String, GenerationProfile> profiles = profile ? Collections.synchronizedMap(new LinkedHashMap<String, GenerationProfile>()) : null;
+        BatchGenerator batch = new BatchGenerator(resolve(directory, cmd.getOptionValue("i")), clientOptInput.getAuthorizationValues()) {
+          protected CodegenConfig configFor(String language) {
+            CodegenConfig config = super.configFor(language);
+            if(getOutputFolder() == null && directory != null)
+              config.setOutputDir(resolve(directory, config.outputFolder()));
+            return config;
+          }
+
+          protected DefaultGenerator newGenerator(String language) {
+            Codegen codegen = new Codegen();
+            codegen.setThreads(generatorThreads);
+            codegen.setIncremental(incrementalRun);
+            codegen.setAtomicWrites(atomic);
+            codegen.setStreamOutput(stream);
+            if(profiles != null)
+              codegen.setListener(profiles.get(language));
+            return codegen;
+          }
+
+          protected List<File> generate(String language, CodegenConfig config) {
+            if(profiles == null)
+              return super.generate(language, config);
+            GenerationProfile languageProfile = new GenerationProfile();
+            profiles.put(language, languageProfile);
+            languageProfile.start();
+            try {
+              return super.generate(language, config);
+            }
+            finally {
+              languageProfile.stop();
+            }
+          }
+        };
+        batch.setOutputFolder(outputFolder);
+        batch.setClientOpts(clientOpts);
+        long started = System.nanoTime();
+        batch.generate(languages);
+        if(profiles != null) {
+          Map<String, Object> json = new LinkedHashMap<String, Object>();
+          json.put("wallMillis", GenerationProfile.millis(System.nanoTime() - started));
+          for(String language : languages) {
+            GenerationProfile languageProfile = profiles.get(language);
+            if(languageProfile == null)
+              continue;
+            System.out.println(language + " " + languageProfile.report(profileTop));
+            json.put(language, languageProfile.toMap(profileTop));
+          }
+          if(profileOutput != null)
+            FileUtils.writeStringToFile(new File(profileOutput), Json.pretty(json), "UTF-8");
+        }
+        return 0;
+      }
       clientOptInput
         .opts(clientOpts)
         .swagger(swagger);
-      new Codegen().opts(clientOptInput).generate();
+      Codegen codegen = new Codegen();
+      codegen.setThreads(threads);
+      codegen.setIncremental(incremental);
+      codegen.setAtomicWrites(atomicWrites);
+      codegen.setStreamOutput(streamOutput);
+      GenerationProfile generationProfile = null;
+      if(profile) {
+        generationProfile = new GenerationProfile();
+        codegen.setListener(generationProfile);
+        generationProfile.start();
+      }
+      codegen.opts(clientOptInput).generate();
+      if(generationProfile != null) {
+        generationProfile.stop();
+        System.out.println(generationProfile.report(profileTop));
+        if(profileOutput != null)
+          FileUtils.writeStringToFile(new File(profileOutput), generationProfile.toJson(profileTop), "UTF-8");
+      }
+      return 0;
     }
     catch (Exception e) {
       e.printStackTrace();
+      return 1;
     }
   }
 
+  /**
+   * Resolves a relative file against a directory, urls are left alone
+   */
+  static String resolve(File directory, String path) {
+    if(directory == null || path == null || path.contains("://") || new File(path).isAbsolute())
+      return path;
+    return new File(directory, path).getPath();
+  }
+
   public static List<CodegenConfig> getExtensions() {
     ServiceLoader<CodegenConfig> loader = ServiceLoader.load(CodegenConfig.class);
     List<CodegenConfig> output = new ArrayList<CodegenConfig>();
@@ -119,20 +320,25 @@ public class Codegen extends DefaultGenerator {
   }
 
   public static CodegenConfig getConfig(String name) {
-    if(configs.containsKey(name)) {
-      return configs.get(name);
-    }
-    else {
+    loadConfigs();
+    Constructor<? extends CodegenConfig> constructor = configs.get(name);
+    if(constructor == null) {
       // see if it's a class
       try {
         System.out.println("loading class " + name);
-        Class customClass = Class.forName(name);
+        constructor = Class.forName(name).asSubclass(CodegenConfig.class).getConstructor();
         System.out.println("loaded");
-        return (CodegenConfig)customClass.newInstance();
+        configs.put(name, constructor);
       }
       catch (Exception e) {
         throw new RuntimeException("can't load class " + name);
       }
     }
+    try {
+      return constructor.newInstance();
+    }
+    catch (Exception e) {
+      throw new RuntimeException("can't create config " + name, e);
+    }
   }
 }
@@ -32,6 +32,7 @@ public interface CodegenConfig {
 
   void setOutputDir(String dir);
   String getOutputDir();
+  void setOutputSink(OutputSink sink);
 
   CodegenModel fromModel(String name, Model model);
   CodegenOperation fromOperation(String resourcePath, String httpMethod, Operation operation);
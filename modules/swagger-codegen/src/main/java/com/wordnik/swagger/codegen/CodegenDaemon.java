@@ -0,0 +1,299 @@
+package com.wordnik.swagger.codegen;
+
+import com.wordnik.swagger.util.Json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.net.*;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a generator running so that repeated runs don't pay for JVM startup,
+ * the config scan and template compilation.  The daemon listens on the
+ * loopback interface only; clients post their arguments and working
+ * directory to <code>/run</code> and get the output of the run back, with
+ * its exit status in the <code>X-Codegen-Exit</code> header.
+ *
+ * Every request has to carry the token the daemon writes to
+ * <code>~/.swagger-codegen/daemon-&lt;port&gt;.token</code>, which only the
+ * user running the daemon can read.
+ */
+public class CodegenDaemon {
+  public static final int DEFAULT_PORT = 7321;
+  public static final String TOKEN_HEADER = "X-Codegen-Token";
+  public static final String EXIT_HEADER = "X-Codegen-Exit";
+
+  static final InheritableThreadLocal<OutputStream> output = new InheritableThreadLocal<OutputStream>();
+  static PrintStream stdout;
+  static PrintStream stderr;
+
+  protected final int port;
+  protected final int threads;
+  protected final File tokenFolder;
+  protected HttpServer server;
+  protected ExecutorService executor;
+  protected String token;
+  protected File tokenFile;
+
+  public CodegenDaemon(int port, int threads) {
+    this(port, threads, defaultTokenFolder());
+  }
+
+  public CodegenDaemon(int port, int threads, File tokenFolder) {
+    this.port = port;
+    this.threads = threads;
+    this.tokenFolder = tokenFolder;
+  }
+
+  public synchronized void start() throws IOException {
+    Codegen.loadConfigs();
+    captureOutput();
+    token = newToken();
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 0);
+    server.createContext("/run", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        run(exchange);
+      }
+    });
+    server.createContext("/shutdown", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        if(authorized(exchange)) {
+          respond(exchange, 200, "stopping\n".getBytes("UTF-8"));
+          new Thread("codegen-daemon-shutdown") {
+            public void run() {
+              CodegenDaemon.this.stop();
+            }
+          }.start();
+        }
+      }
+    });
+    executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.start();
+    tokenFile = writeToken(tokenFolder, getPort(), token);
+  }
+
+  public synchronized void stop() {
+    if(server == null)
+      return;
+    server.stop(0);
+    executor.shutdown();
+    tokenFile.delete();
+    server = null;
+  }
+
+  /**
+   * The port the daemon listens on, which is picked by the system when it
+   * was started with port 0
+   */
+  public synchronized int getPort() {
+    return server == null ? port : server.getAddress().getPort();
+  }
+
+  public File getTokenFile() {
+    return tokenFile;
+  }
+
+  protected void run(HttpExchange exchange) throws IOException {
+    if(!authorized(exchange))
+      return;
+    if(!"POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 405, new byte[0]);
+      return;
+    }
+    JsonNode request = Json.mapper().readTree(exchange.getRequestBody());
+    List<String> args = new ArrayList<String>();
+    for(JsonNode arg : request.path("args"))
+      args.add(arg.asText());
+    File directory = request.hasNonNull("directory") ? new File(request.get("directory").asText()) : null;
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    int status;
+    output.set(buffer);
+    try {
+      status = Codegen.run(args.toArray(new String[args.size()]), directory);
+    }
+    catch (Throwable t) {
+      t.printStackTrace();
+      status = 1;
+    }
+    finally {
+      output.remove();
+    }
+    exchange.getResponseHeaders().set(EXIT_HEADER, String.valueOf(status));
+    respond(exchange, 200, buffer.toByteArray());
+  }
+
+  protected boolean authorized(HttpExchange exchange) throws IOException {
+    if(token.equals(exchange.getRequestHeaders().getFirst(TOKEN_HEADER)))
+      return true;
+    respond(exchange, 403, "missing or wrong token\n".getBytes("UTF-8"));
+    return false;
+  }
+
+  static void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+    exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(body);
+    out.close();
+  }
+
+  /**
+   * Sends a run to the daemon on a port and copies its output to stdout.
+   * Returns the exit status of the run, or null when no daemon is running
+   */
+  public static Integer forward(int port, String[] args) {
+    return forward(port, args, defaultTokenFolder(), System.out);
+  }
+
+  public static Integer forward(int port, String[] args, File tokenFolder, OutputStream out) {
+    File tokenFile = tokenFile(tokenFolder, port);
+    if(!tokenFile.exists())
+      return null;
+    HttpURLConnection connection = null;
+    try {
+      ObjectNode request = Json.mapper().createObjectNode();
+      request.put("directory", System.getProperty("user.dir"));
+      ArrayNode array = request.putArray("args");
+      for(String arg : args)
+        array.add(arg);
+      byte[] body = Json.mapper().writeValueAsBytes(request);
+
+      connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/run").openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setRequestProperty(TOKEN_HEADER, FileUtils.readFileToString(tokenFile, "UTF-8").trim());
+      connection.setFixedLengthStreamingMode(body.length);
+      OutputStream requestBody = connection.getOutputStream();
+      requestBody.write(body);
+      requestBody.close();
+
+      if(connection.getResponseCode() != 200)
+        return null;
+      InputStream in = connection.getInputStream();
+      IOUtils.copy(in, out);
+      in.close();
+      out.flush();
+      return Integer.valueOf(connection.getHeaderField(EXIT_HEADER));
+    }
+    catch (IOException e) {
+      return null;
+    }
+    finally {
+      if(connection != null)
+        connection.disconnect();
+    }
+  }
+
+  /**
+   * Sends the output of every thread working on a run to that run's buffer,
+   * including the threads a generator starts for it
+   */
+  static synchronized void captureOutput() {
+    if(stdout != null)
+      return;
+    stdout = System.out;
+    stderr = System.err;
+    System.setOut(new PrintStream(new RoutingOutputStream(stdout), true));
+    System.setErr(new PrintStream(new RoutingOutputStream(stderr), true));
+  }
+
+  static class RoutingOutputStream extends OutputStream {
+    protected final OutputStream fallback;
+
+    RoutingOutputStream(OutputStream fallback) {
+      this.fallback = fallback;
+    }
+
+    protected OutputStream target() {
+      OutputStream target = output.get();
+      return target == null ? fallback : target;
+    }
+
+    public void write(int b) throws IOException {
+      OutputStream target = target();
+      synchronized(target) {
+        target.write(b);
+      }
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+      OutputStream target = target();
+      synchronized(target) {
+        target.write(b, off, len);
+      }
+    }
+
+    public void flush() throws IOException {
+      target().flush();
+    }
+  }
+
+  static File defaultTokenFolder() {
+    return new File(System.getProperty("user.home"), ".swagger-codegen");
+  }
+
+  static File tokenFile(File folder, int port) {
+    return new File(folder, "daemon-" + port + ".token");
+  }
+
+  static String newToken() {
+    byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    return GenerationManifest.toHex(bytes);
+  }
+
+  /**
+   * Creates the token file readable by its owner only, before the token
+   * is written to it
+   */
+  static File writeToken(File folder, int port, String token) throws IOException {
+    folder.mkdirs();
+    File file = tokenFile(folder, port);
+    file.delete();
+    if(!file.createNewFile())
+      throw new IOException("unable to create " + file);
+    file.setReadable(false, false);
+    file.setWritable(false, false);
+    file.setReadable(true, true);
+    file.setWritable(true, true);
+    FileUtils.writeStringToFile(file, token, "UTF-8");
+    return file;
+  }
+
+  /**
+   * Starts a daemon: <code>[port [threads]]</code>
+   */
+  public static void main(String[] args) {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    final CodegenDaemon daemon = new CodegenDaemon(port, threads);
+    try {
+      daemon.start();
+    }
+    catch (IOException e) {
+      System.err.println("unable to start the codegen daemon on port " + port + ": " + e.getMessage());
+      System.exit(1);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      public void run() {
+        daemon.stop();
+      }
+    });
+    stdout.println("codegen daemon listening on 127.0.0.1:" + daemon.getPort() + ", run with CODEGEN_DAEMON=" + daemon.getPort() + " to use it");
+  }
+}
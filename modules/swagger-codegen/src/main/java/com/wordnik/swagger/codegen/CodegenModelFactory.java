@@ -1,38 +1,58 @@
 package com.wordnik.swagger.codegen;
 
-import java.util.HashMap;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.EnumMap;
 import java.util.Map;
 
 public final class CodegenModelFactory {
 
-  private static final Map<CodegenModelType, Class<?>> typeMapping = new HashMap<CodegenModelType, Class<?>>();
+  /**
+   * Constructors of the configured implementations.  The map is replaced
+   * rather than modified, so newInstance can read it without locking while
+   * generation runs on other threads
+   */
+  private static volatile Map<CodegenModelType, Constructor<?>> typeMapping = new EnumMap<CodegenModelType, Constructor<?>>(CodegenModelType.class);
 
   /**
    * Configure a different implementation class.
    * @param type the type that shall be replaced
    * @param implementation the implementation class must extend the default class and must provide a public no-arg constructor
    */
-  public static void setTypeMapping(CodegenModelType type, Class<?> implementation) {
+  public static synchronized void setTypeMapping(CodegenModelType type, Class<?> implementation) {
     if (!type.getDefaultImplementation().isAssignableFrom(implementation)) {
       throw new IllegalArgumentException(implementation.getSimpleName() + " doesn't extend " + type.getDefaultImplementation().getSimpleName());
     }
+    Constructor<?> constructor;
     try {
-      implementation.newInstance();
+      constructor = implementation.getConstructor();
+      constructor.newInstance();
     } catch (Exception e) {
       throw new IllegalArgumentException(e);
     }
-    typeMapping.put(type, implementation);
+    Map<CodegenModelType, Constructor<?>> mapping = new EnumMap<CodegenModelType, Constructor<?>>(typeMapping);
+    if (implementation == type.getDefaultImplementation()) {
+      mapping.remove(type);
+    } else {
+      mapping.put(type, constructor);
+    }
+    typeMapping = mapping;
   }
 
   @SuppressWarnings("unchecked")
   public static <T> T newInstance(CodegenModelType type) {
-    Class<?> classType = typeMapping.get(type);
+    Constructor<?> constructor = typeMapping.get(type);
+    if (constructor == null) {
+      return (T) type.newDefaultInstance();
+    }
     try {
-      return (T) (classType != null ? classType : type.getDefaultImplementation()).newInstance();
+      return (T) constructor.newInstance();
     } catch (InstantiationException e) {
       throw new RuntimeException(e);
     } catch (IllegalAccessException e) {
       throw new RuntimeException(e);
+    } catch (InvocationTargetException e) {
+      throw new RuntimeException(e.getCause());
     }
   }
 }
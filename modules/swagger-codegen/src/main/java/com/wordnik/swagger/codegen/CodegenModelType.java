@@ -2,11 +2,31 @@ package com.wordnik.swagger.codegen;
 
 public enum CodegenModelType {
 
-  MODEL(CodegenModel.class),
-  OPERATION(CodegenOperation.class),
-  PARAMETER(CodegenParameter.class),
-  PROPERTY(CodegenProperty.class),
-  RESPONSE(CodegenResponse.class);
+  MODEL(CodegenModel.class) {
+    Object newDefaultInstance() {
+      return new CodegenModel();
+    }
+  },
+  OPERATION(CodegenOperation.class) {
+    Object newDefaultInstance() {
+      return new CodegenOperation();
+    }
+  },
+  PARAMETER(CodegenParameter.class) {
+    Object newDefaultInstance() {
+      return new CodegenParameter();
+    }
+  },
+  PROPERTY(CodegenProperty.class) {
+    Object newDefaultInstance() {
+      return new CodegenProperty();
+    }
+  },
+  RESPONSE(CodegenResponse.class) {
+    Object newDefaultInstance() {
+      return new CodegenResponse();
+    }
+  };
 
   private final Class<?> defaultImplementation;
 
@@ -17,4 +37,9 @@ public enum CodegenModelType {
   public Class<?> getDefaultImplementation() {
     return defaultImplementation;
   }
+
+  /**
+   * Creates the default implementation without going through reflection
+   */
+  abstract Object newDefaultInstance();
 }
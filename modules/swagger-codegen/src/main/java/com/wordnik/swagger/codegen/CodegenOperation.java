@@ -7,12 +7,15 @@ import java.util.*;
 public class CodegenOperation {
   public Boolean hasConsumes, hasProduces, hasParams, returnTypeIsPrimitive,
     returnSimpleType, subresourceOperation, isMapContainer, isListContainer,
-    hasMore = Boolean.TRUE, isMultipart, needsLogin = Boolean.FALSE, isAngi = Boolean.FALSE, isRx = Boolean.FALSE;
+    hasMore = Boolean.TRUE, isMultipart, needsLogin = Boolean.FALSE, isAngi = Boolean.FALSE, isRx = Boolean.FALSE,
+    hasPathParams, hasQueryParams, hasHeaderParams, hasFormParams;
   public String path, operationId, returnType, httpMethod, returnBaseType,
     returnContainer, summary, notes, baseName, defaultResponse, operationType,
     requestName, baseUrl, bundle;
 
   public List<Map<String, String>> consumes, produces;
+  // literal parts and path parameters of the path, for languages that set them
+  public List<Map<String, String>> pathSegments;
   public CodegenParameter bodyParam;
   public List<CodegenParameter> allParams = new ArrayList<CodegenParameter>();
   public List<CodegenParameter> bodyParams = new ArrayList<CodegenParameter>();
@@ -5,13 +5,16 @@ import com.wordnik.swagger.models.parameters.*;
 import com.wordnik.swagger.models.properties.*;
 import com.wordnik.swagger.util.Json;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.File;
+import java.io.IOException;
 
 public class DefaultCodegen {
   Logger LOGGER = LoggerFactory.getLogger(DefaultCodegen.class);
@@ -29,11 +32,32 @@ public class DefaultCodegen {
   protected String templateDir;
   protected Map<String, Object> additionalProperties = new HashMap<String, Object>();
   protected List<SupportingFile> supportingFiles = new ArrayList<SupportingFile>();
+  protected OutputSink outputSink = null;
+
+  // resolved types and inline body models, reset by processOpts for every run
+  protected Map<String, CodegenProperty> typeCache = new ConcurrentHashMap<String, CodegenProperty>();
+  protected Map<Model, CodegenModel> bodyModelCache = Collections.synchronizedMap(new IdentityHashMap<Model, CodegenModel>());
 
   public void processOpts(){
     if(additionalProperties.containsKey("templateDir")) {
       this.setTemplateDir((String)additionalProperties.get("templateDir"));
     }
+    clearResolutionCache();
+  }
+
+  /**
+   * Options arrive as strings, this turns "true" and "false" into Booleans
+   * so templates can test the option with a section
+   */
+  protected void booleanOption(String name) {
+    Object value = additionalProperties.get(name);
+    if("true".equals(value) || "false".equals(value))
+      additionalProperties.put(name, Boolean.valueOf((String) value));
+  }
+
+  public void clearResolutionCache() {
+    typeCache.clear();
+    bodyModelCache.clear();
   }
 
   // override with any special post-processing
@@ -54,6 +78,25 @@ public class DefaultCodegen {
   // override with any special handling of the entire swagger spec
   public void processSwagger(Swagger swagger) {}
 
+  /**
+   * Set by the generator while processSwagger runs, null when it writes to
+   * the file system
+   */
+  public void setOutputSink(OutputSink outputSink) {
+    this.outputSink = outputSink;
+  }
+
+  /**
+   * Writes a file of the config's own, through the generator's sink if there
+   * is one so it ends up with the rendered files
+   */
+  protected void writeFile(String filename, String contents) throws IOException {
+    if(outputSink != null)
+      outputSink.write(filename, contents.getBytes("UTF-8"));
+    else
+      FileUtils.writeStringToFile(new File(filename), contents, "UTF-8");
+  }
+
   // override with any special text escaping logic
   public String escapeText(String input) {
     if(input != null) {
@@ -467,8 +510,6 @@ public class DefaultCodegen {
     property.example = p.getExample();
     property.defaultValue = toDefaultValue(p);
 
-    String type = getSwaggerType(p);
-
     if(p instanceof AbstractNumericProperty) {
       AbstractNumericProperty np = (AbstractNumericProperty) p;
       property.minimum = np.getMinimum();
@@ -502,7 +543,15 @@ public class DefaultCodegen {
       }
     }
 
-    property.datatype = getTypeDeclaration(p);
+    CodegenProperty type = resolveType(p);
+    property.datatype = type.datatype;
+    property.baseType = type.baseType;
+    property.complexType = type.complexType;
+    property.containerType = type.containerType;
+    property.isContainer = type.isContainer;
+    property.isNotContainer = type.isNotContainer;
+    property.isMap = type.isMap;
+    property.isPrimitiveType = type.isPrimitiveType;
 
     // this can cause issues for clients which don't support enums
     if(property.isEnum)
@@ -510,45 +559,72 @@ public class DefaultCodegen {
     else
       property.datatypeWithEnum = property.datatype;
 
-    property.baseType = getSwaggerType(p);
+    return property;
+  }
 
-    if(p instanceof ArrayProperty) {
-      property.isContainer = true;
-      property.containerType = "array";
-      ArrayProperty ap = (ArrayProperty) p;
-      CodegenProperty cp = fromProperty("inner", ap.getItems());
-      if(cp == null) {
-        LOGGER.warn("skipping invalid property " + Json.pretty(p));
+  /**
+   * Resolves the type of a property once per run for all properties with
+   * the same typeKey, e.g. every reference to one model
+   **/
+  protected CodegenProperty resolveType(Property p) {
+    String key = typeKey(p);
+    CodegenProperty type = typeCache.get(key);
+    if(type != null)
+      return type;
+    type = CodegenModelFactory.newInstance(CodegenModelType.PROPERTY);
+    type.baseType = getSwaggerType(p);
+    type.datatype = getTypeDeclaration(p);
+
+    if(p instanceof ArrayProperty || p instanceof MapProperty) {
+      type.isContainer = true;
+      Property inner;
+      if(p instanceof ArrayProperty) {
+        type.containerType = "array";
+        inner = ((ArrayProperty) p).getItems();
+      }
+      else {
+        type.isMap = true;
+        type.containerType = "map";
+        inner = ((MapProperty) p).getAdditionalProperties();
       }
+      if(inner == null)
+        LOGGER.warn("skipping invalid property " + Json.pretty(p));
       else {
-        property.baseType = getSwaggerType(p);
-        if(!languageSpecificPrimitives.contains(cp.baseType))
-          property.complexType = cp.baseType;
+        String innerType = resolveType(inner).baseType;
+        if(!languageSpecificPrimitives.contains(innerType))
+          type.complexType = innerType;
         else
-          property.isPrimitiveType = true;
+          type.isPrimitiveType = true;
       }
     }
-    else if(p instanceof MapProperty) {
-      property.isContainer = true;
-      property.isMap = true;
-      property.containerType = "map";
-      MapProperty ap = (MapProperty) p;
-      CodegenProperty cp = fromProperty("inner", ap.getAdditionalProperties());
-
-      property.baseType = getSwaggerType(p);
-      if(!languageSpecificPrimitives.contains(cp.baseType))
-        property.complexType = cp.baseType;
-      else
-        property.isPrimitiveType = true;
-    }
     else {
-      property.isNotContainer = true;
-      if(languageSpecificPrimitives().contains(type))
-        property.isPrimitiveType = true;
+      type.isNotContainer = true;
+      if(languageSpecificPrimitives().contains(type.baseType))
+        type.isPrimitiveType = true;
       else
-        property.complexType = property.baseType;
+        type.complexType = type.baseType;
     }
-    return property;
+    typeCache.put(key, type);
+    return type;
+  }
+
+  /**
+   * Everything getSwaggerType and getTypeDeclaration look at, and nothing
+   * that differs between uses of a type such as the description or enum
+   **/
+  protected String typeKey(Property p) {
+    if(p == null)
+      return "";
+    StringBuilder key = new StringBuilder(p.getClass().getName())
+      .append(':').append(p.getType())
+      .append(':').append(p.getFormat());
+    if(p instanceof RefProperty)
+      key.append(':').append(((RefProperty) p).get$ref());
+    else if(p instanceof ArrayProperty)
+      key.append('[').append(typeKey(((ArrayProperty) p).getItems())).append(']');
+    else if(p instanceof MapProperty)
+      key.append('{').append(typeKey(((MapProperty) p).getAdditionalProperties())).append('}');
+    return key.toString();
   }
 
   public CodegenOperation fromOperation(String path, String httpMethod, Operation operation){
@@ -774,11 +850,67 @@ public class DefaultCodegen {
 
     if(op.allParams.size() > 0)
       op.hasParams = true;
+    op.hasPathParams = op.pathParams.size() > 0;
+    op.hasQueryParams = op.queryParams.size() > 0;
+    op.hasHeaderParams = op.headerParams.size() > 0;
+    op.hasFormParams = op.formParams.size() > 0;
     op.externalDocs = operation.getExternalDocs();
+    op.pathSegments = pathSegments(op);
 
     return op;
   }
 
+  /**
+   * Splits the path into string literals and path parameters, so the api
+   * can append them instead of replacing placeholders with regular
+   * expressions.  Placeholders without a parameter are kept as they are
+   */
+  public List<Map<String, String>> pathSegments(CodegenOperation op) {
+    String path = op.path.replace("{format}", "json");
+    List<Map<String, String>> segments = new ArrayList<Map<String, String>>();
+    StringBuilder literal = new StringBuilder();
+    int start = 0;
+    while(start < path.length()) {
+      int open = path.indexOf('{', start);
+      int close = open < 0 ? -1 : path.indexOf('}', open);
+      if(close < 0) {
+        literal.append(path.substring(start));
+        break;
+      }
+      literal.append(path.substring(start, open));
+      CodegenParameter param = pathParam(op, path.substring(open + 1, close));
+      if(param == null)
+        literal.append(path.substring(open, close + 1));
+      else {
+        if(literal.length() > 0) {
+          segments.add(Collections.singletonMap("literal", escapeLiteral(literal.toString())));
+          literal.setLength(0);
+        }
+        segments.add(Collections.singletonMap("paramName", param.paramName));
+      }
+      start = close + 1;
+    }
+    if(literal.length() > 0 || segments.isEmpty())
+      segments.add(Collections.singletonMap("literal", escapeLiteral(literal.toString())));
+    return segments;
+  }
+
+  protected CodegenParameter pathParam(CodegenOperation op, String name) {
+    for(CodegenParameter param : op.pathParams) {
+      if(name.equals(param.baseName))
+        return param;
+    }
+    for(CodegenParameter param : op.pathParams) {
+      if(name.equals(param.paramName))
+        return param;
+    }
+    return null;
+  }
+
+  protected String escapeLiteral(String literal) {
+    return literal.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
   public CodegenResponse fromResponse(String responseCode, Response response) {
     CodegenResponse r = CodegenModelFactory.newInstance(CodegenModelType.RESPONSE);
     if("default".equals(responseCode))
@@ -839,7 +971,11 @@ public class DefaultCodegen {
 
       if(model instanceof ModelImpl) {
         ModelImpl impl = (ModelImpl) model;
-        CodegenModel cm = fromModel(bp.getName(), impl);
+        CodegenModel cm = bodyModelCache.get(impl);
+        if(cm == null) {
+          cm = fromModel(bp.getName(), impl);
+          bodyModelCache.put(impl, cm);
+        }
         if(cm.emptyVars != null && cm.emptyVars == false) {
           p.dataType = getTypeDeclaration(cm.classname);
           imports.add(p.dataType);
@@ -857,7 +993,6 @@ public class DefaultCodegen {
         // to use the built-in model parsing, we unwrap the ArrayModel
         // and get a single property from it
         ArrayModel impl = (ArrayModel) model;
-        CodegenModel cm = fromModel(bp.getName(), impl);
         // get the single property
         ArrayProperty ap = new ArrayProperty().items(impl.getItems());
         CodegenProperty cp = fromProperty("inner", ap);
@@ -7,13 +7,47 @@ import com.samskivert.mustache.*;
 import org.apache.commons.io.FileUtils;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.*;
 import java.io.*;
+import java.net.URL;
 
 public class DefaultGenerator implements Generator {
+  /**
+   * Compiled templates and partial sources, keyed by the full template path
+   * (templateDir + template name).  Shared by every generator in the JVM;
+   * templates loaded from the file system are re-read when their mtime changes
+   */
+  private static final Map<String, CachedTemplate> compiledTemplates = new ConcurrentHashMap<String, CachedTemplate>();
+  private static final Map<String, CachedTemplate> templateSources = new ConcurrentHashMap<String, CachedTemplate>();
+  private static final Pattern PARTIAL_PATTERN = Pattern.compile("\\{\\{>\\s*([^}\\s]+)\\s*\\}\\}");
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
   protected CodegenConfig config;
   protected ClientOptInput opts = null;
   protected Swagger swagger = null;
+  protected int threads = 1;
+  protected boolean incremental = false;
+  protected GenerationManifest manifest = null;
+  protected boolean skipUnchanged = true;
+  protected boolean atomicWrites = false;
+  // templates already checked against the file system in this run
+  protected Map<String, Template> runTemplates = new ConcurrentHashMap<String, Template>();
+  protected boolean streamOutput = false;
+  protected OutputSink outputSink = null;
+  protected GenerationListener listener = null;
+  protected final AtomicInteger filesWritten = new AtomicInteger();
+  protected final AtomicInteger filesSkipped = new AtomicInteger();
+  protected String inputFingerprint = null;
+  protected Exception failure = null;
+  protected Map<String, String> templateFingerprints = new ConcurrentHashMap<String, String>();
 
   public Generator opts(ClientOptInput opts) {
     this.opts = opts;
@@ -26,6 +60,97 @@ public class DefaultGenerator implements Generator {
     return this;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public boolean isIncremental() {
+    return incremental;
+  }
+  /**
+   * When set, a manifest of input hashes is kept in the output folder and
+   * files whose definition, template and additionalProperties are unchanged
+   * since the last run are neither rendered nor written
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  public boolean isSkipUnchanged() {
+    return skipUnchanged;
+  }
+  /**
+   * Leaves files untouched when the rendered content is identical, so their
+   * mtime only changes when their content does.  On by default
+   */
+  public void setSkipUnchanged(boolean skipUnchanged) {
+    this.skipUnchanged = skipUnchanged;
+  }
+
+  public boolean isAtomicWrites() {
+    return atomicWrites;
+  }
+  /**
+   * Writes every file through a temp file and a rename, so a partially
+   * written file is never observed
+   */
+  public void setAtomicWrites(boolean atomicWrites) {
+    this.atomicWrites = atomicWrites;
+  }
+
+  public boolean isStreamOutput() {
+    return streamOutput;
+  }
+  /**
+   * Renders templates straight into the output files instead of building
+   * each file as a String first, which keeps memory flat for large outputs
+   */
+  public void setStreamOutput(boolean streamOutput) {
+    this.streamOutput = streamOutput;
+  }
+
+  public OutputSink getOutputSink() {
+    return outputSink;
+  }
+
+  /**
+   * Sends every generated file to the sink instead of the file system.
+   * Incremental generation and skipping unchanged files don't apply then
+   */
+  public void setOutputSink(OutputSink outputSink) {
+    this.outputSink = outputSink;
+  }
+
+  public GenerationListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Reports the time spent in every phase of a generation to the listener
+   */
+  public void setListener(GenerationListener listener) {
+    this.listener = listener;
+  }
+
+  public int getFilesWritten() {
+    return filesWritten.get();
+  }
+
+  public int getFilesSkipped() {
+    return filesSkipped.get();
+  }
+
+  /**
+   * The exception that ended the last generate() early, or null if it
+   * completed.  generate() still returns the files written until then
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
   public List<File> generate() {
     if(swagger == null || config == null) {
       throw new RuntimeException("missing swagger input or config!");
@@ -34,8 +159,12 @@ public class DefaultGenerator implements Generator {
       Json.prettyPrint(swagger);
     }
     List<File> files = new ArrayList<File>();
+    failure = null;
+    runTemplates.clear();
     try {
+      long[] optsStarted = startTimer();
       config.processOpts();
+      stopTimer(GenerationListener.PROCESS_OPTS, config.getName(), optsStarted);
       if(swagger.getInfo() != null) {
         Info info = swagger.getInfo();
         if(info.getTitle() != null)
@@ -70,7 +199,17 @@ public class DefaultGenerator implements Generator {
       else
         hostBuilder.append("https://");
       hostBuilder.append(swagger.getHost()).append(swagger.getBasePath());
-      String basePath = hostBuilder.toString();
+      final String basePath = hostBuilder.toString();
+
+      filesWritten.set(0);
+      filesSkipped.set(0);
+      manifest = null;
+      if(incremental && outputSink == null) {
+        templateFingerprints.clear();
+        manifest = GenerationManifest.load(config.outputFolder());
+        inputFingerprint = GenerationManifest.hash(config.getClass().getName(), config.templateDir(),
+          toJson(new TreeMap<String, Object>(config.additionalProperties())));
+      }
 
       List<Object> allOperations = new ArrayList<Object>();
       List<Object> allModels = new ArrayList<Object>();
@@ -78,30 +217,22 @@ public class DefaultGenerator implements Generator {
       // models
       Map<String, Model> definitions = swagger.getDefinitions();
       if(definitions != null) {
-        for(String name: definitions.keySet()) {
-          Model model = definitions.get(name);
-          Map<String, Model> modelMap = new HashMap<String, Model>();
-          modelMap.put(name, model);
-          Map<String, Object> models = processModels(config, modelMap);
-          models.putAll(config.additionalProperties());
-
-          allModels.add(((List<Object>)models.get("models")).get(0));
-
-          for(String templateName : config.modelTemplateFiles().keySet()) {
-            String suffix = config.modelTemplateFiles().get(templateName);
-            String filename = config.modelFileFolder() + File.separator + config.toModelFilename(name) + suffix;
-            String template = readTemplate(config.templateDir() + File.separator + templateName);
-            Template tmpl = Mustache.compiler()
-              .withLoader(new Mustache.TemplateLoader() {
-                public Reader getTemplate (String name) {
-                  return getTemplateReader(config.templateDir() + File.separator + name + ".mustache");
-                };
-              })
-              .defaultValue("")
-              .compile(template);
-            writeToFile(filename, tmpl.execute(models));
-            files.add(new File(filename));
-          }
+        List<Callable<Map<String, Object>>> modelTasks = new ArrayList<Callable<Map<String, Object>>>();
+        List<List<File>> modelFiles = new ArrayList<List<File>>();
+        for(final String name: definitions.keySet()) {
+          final Model model = definitions.get(name);
+          final List<File> written = new ArrayList<File>();
+          modelFiles.add(written);
+          modelTasks.add(new Callable<Map<String, Object>>() {
+            public Map<String, Object> call() throws Exception {
+              return generateModel(name, model, written);
+            }
+          });
+        }
+        List<Map<String, Object>> modelResults = runTasks(modelTasks);
+        for(int i = 0; i < modelResults.size(); i++) {
+          allModels.add(((List<Object>)modelResults.get(i).get("models")).get(0));
+          files.addAll(modelFiles.get(i));
         }
       }
       if(System.getProperty("debugModels") != null) {
@@ -111,36 +242,22 @@ public class DefaultGenerator implements Generator {
 
       // apis
       Map<String, List<CodegenOperation>> paths = processPaths(swagger.getPaths());
-      for(String tag : paths.keySet()) {
-        List<CodegenOperation> ops = paths.get(tag);
-        Map<String, Object> operation = processOperations(config, tag, ops);
-        operation.put("basePath", basePath);
-        operation.put("baseName", tag);
-        operation.put("modelPackage", config.modelPackage());
-        operation.putAll(config.additionalProperties());
-        operation.put("classname", config.toApiName(tag));
-        operation.put("classVarName", config.toApiVarName(tag));
-        allOperations.add(operation);
-        for(String templateName : config.apiTemplateFiles().keySet()) {
-          String suffix = config.apiTemplateFiles().get(templateName);
-          String filename = config.apiFileFolder() +
-            File.separator +
-            config.toApiFilename(tag) +
-            suffix;
-
-          String template = readTemplate(config.templateDir() + File.separator + templateName);
-          Template tmpl = Mustache.compiler()
-            .withLoader(new Mustache.TemplateLoader() {
-              public Reader getTemplate (String name) {
-                return getTemplateReader(config.templateDir() + File.separator + name + ".mustache");
-              };
-            })
-            .defaultValue("")
-            .compile(template);
-
-          writeToFile(filename, tmpl.execute(operation));
-          files.add(new File(filename));
-        }
+      List<Callable<Map<String, Object>>> apiTasks = new ArrayList<Callable<Map<String, Object>>>();
+      List<List<File>> apiFiles = new ArrayList<List<File>>();
+      for(final String tag : paths.keySet()) {
+        final List<CodegenOperation> ops = paths.get(tag);
+        final List<File> written = new ArrayList<File>();
+        apiFiles.add(written);
+        apiTasks.add(new Callable<Map<String, Object>>() {
+          public Map<String, Object> call() throws Exception {
+            return generateApi(tag, ops, basePath, written);
+          }
+        });
+      }
+      List<Map<String, Object>> apiResults = runTasks(apiTasks);
+      for(int i = 0; i < apiResults.size(); i++) {
+        allOperations.add(apiResults.get(i));
+        files.addAll(apiFiles.get(i));
       }
       if(System.getProperty("debugOperations") != null) {
         System.out.println("############ Operation info ############");
@@ -182,40 +299,181 @@ public class DefaultGenerator implements Generator {
         if(support.folder != null && !"".equals(support.folder))
           outputFolder += File.separator + support.folder;
         File of = new File(outputFolder);
-        if(!of.isDirectory())
+        if(outputSink == null && !of.isDirectory())
           of.mkdirs();
         String outputFilename = outputFolder + File.separator + support.destinationFilename;
 
         if(support.templateFile.endsWith("mustache")) {
-          String template = readTemplate(config.templateDir() + File.separator + support.templateFile);
-          Template tmpl = Mustache.compiler()
-            .withLoader(new Mustache.TemplateLoader() {
-              public Reader getTemplate (String name) {
-                return getTemplateReader(config.templateDir() + File.separator + name + ".mustache");
-              };
-            })
-            .defaultValue("")
-            .compile(template);
-
-          writeToFile(outputFilename, tmpl.execute(bundle));
+          if(needsUpdate(outputFilename, support.templateFile, bundle)) {
+            Template tmpl = compileTemplate(support.templateFile);
+            renderToFile(outputFilename, support.templateFile, tmpl, bundle);
+          }
           files.add(new File(outputFilename));
         }
         else {
-          String template = readTemplate(config.templateDir() + File.separator + support.templateFile);
-          FileUtils.writeStringToFile(new File(outputFilename), template);
-          System.out.println("copying file to " + outputFilename);
+          String template = readTemplateSource(config.templateDir() + File.separator + support.templateFile);
+          if(manifest == null || manifest.needsUpdate(outputFilename, GenerationManifest.hash(template))) {
+            writeOutput(outputFilename, template.getBytes());
+          }
           files.add(new File(outputFilename));
         }
       }
 
-      config.processSwagger(swagger);
+      // files the config writes itself go to the sink as well
+      config.setOutputSink(outputSink == null ? null : trackingSink(files));
+      try {
+        config.processSwagger(swagger);
+      }
+      finally {
+        config.setOutputSink(null);
+      }
+
+      if(manifest != null) {
+        manifest.save();
+        manifest.printReport();
+      }
+      System.out.println("wrote " + filesWritten.get() + " files, skipped " + filesSkipped.get() + " unchanged files");
     }
     catch (Exception e) {
+      failure = e;
       e.printStackTrace();
     }
     return files;
   }
 
+  /**
+   * Converts a single definition and renders it with every model template.
+   * Called concurrently when more than one thread is configured
+   */
+  protected Map<String, Object> generateModel(String name, Model model, List<File> files) throws IOException {
+    Map<String, Model> modelMap = new HashMap<String, Model>();
+    modelMap.put(name, model);
+    long[] started = startTimer();
+    Map<String, Object> models = processModels(config, modelMap);
+    stopTimer(GenerationListener.MODELS, name, started);
+    models.putAll(config.additionalProperties());
+
+    for(String templateName : config.modelTemplateFiles().keySet()) {
+      String suffix = config.modelTemplateFiles().get(templateName);
+      String filename = config.modelFileFolder() + File.separator + config.toModelFilename(name) + suffix;
+      if(needsUpdate(filename, templateName, modelMap)) {
+        Template tmpl = compileTemplate(templateName);
+        renderToFile(filename, templateName, tmpl, models);
+      }
+      files.add(new File(filename));
+    }
+    return models;
+  }
+
+  /**
+   * Builds the template data for one api tag and renders it with every api
+   * template.  Called concurrently when more than one thread is configured
+   */
+  protected Map<String, Object> generateApi(String tag, List<CodegenOperation> ops, String basePath, List<File> files) throws IOException {
+    long[] started = startTimer();
+    Map<String, Object> operation = processOperations(config, tag, ops);
+    stopTimer(GenerationListener.APIS, tag, started);
+    operation.put("basePath", basePath);
+    operation.put("baseName", tag);
+    operation.put("modelPackage", config.modelPackage());
+    operation.putAll(config.additionalProperties());
+    operation.put("classname", config.toApiName(tag));
+    operation.put("classVarName", config.toApiVarName(tag));
+
+    for(String templateName : config.apiTemplateFiles().keySet()) {
+      String suffix = config.apiTemplateFiles().get(templateName);
+      String filename = config.apiFileFolder() +
+        File.separator +
+        config.toApiFilename(tag) +
+        suffix;
+
+      if(needsUpdate(filename, templateName, operation)) {
+        Template tmpl = compileTemplate(templateName);
+        renderToFile(filename, templateName, tmpl, operation);
+      }
+      files.add(new File(filename));
+    }
+    return operation;
+  }
+
+  /**
+   * In incremental mode, checks the hash of the template data, the template
+   * and the run's additionalProperties against the manifest.  Always true
+   * when not running incrementally
+   */
+  protected boolean needsUpdate(String filename, String templateFile, Object data) {
+    if(manifest == null)
+      return true;
+    String hash = GenerationManifest.hash(inputFingerprint, templateFingerprint(templateFile), toJson(data));
+    return manifest.needsUpdate(filename, hash);
+  }
+
+  /**
+   * Hash of a template and, recursively, of every partial it includes
+   */
+  protected String templateFingerprint(String templateFile) {
+    String fingerprint = templateFingerprints.get(templateFile);
+    if(fingerprint == null) {
+      StringBuilder sources = new StringBuilder();
+      appendTemplateSources(templateFile, sources, new HashSet<String>());
+      fingerprint = GenerationManifest.hash(sources.toString());
+      templateFingerprints.put(templateFile, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  private void appendTemplateSources(String templateFile, StringBuilder sources, Set<String> seen) {
+    if(!seen.add(templateFile))
+      return;
+    String source = readCachedTemplate(config.templateDir() + File.separator + templateFile);
+    sources.append(templateFile).append('\n').append(source).append('\n');
+    Matcher matcher = PARTIAL_PATTERN.matcher(source);
+    while(matcher.find()) {
+      appendTemplateSources(matcher.group(1) + ".mustache", sources, seen);
+    }
+  }
+
+  protected String toJson(Object data) {
+    try {
+      return Json.mapper().writeValueAsString(data);
+    }
+    catch (Exception e) {
+      // data we cannot serialize is never considered unchanged
+      return UUID.randomUUID().toString();
+    }
+  }
+
+  /**
+   * Runs the tasks on a pool of {@link #getThreads()} threads, or inline when
+   * only one thread is configured.  Results are returned in task order
+   */
+  protected <T> List<T> runTasks(List<Callable<T>> tasks) throws Exception {
+    List<T> results = new ArrayList<T>();
+    if(threads <= 1 || tasks.size() <= 1) {
+      for(Callable<T> task : tasks) {
+        results.add(task.call());
+      }
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+    try {
+      for(Future<T> future : executor.invokeAll(tasks)) {
+        try {
+          results.add(future.get());
+        }
+        catch (ExecutionException e) {
+          if(e.getCause() instanceof Exception)
+            throw (Exception) e.getCause();
+          throw e;
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
   public Map<String, List<CodegenOperation>> processPaths(Map<String, Path> paths) {
     Map<String, List<CodegenOperation>> ops = new HashMap<String, List<CodegenOperation>>();
     List<String> tags = null;
@@ -241,7 +499,9 @@ public class DefaultGenerator implements Generator {
       }
 
       for(String tag : tags) {
+        long[] started = startTimer();
         CodegenOperation co = config.fromOperation(resourcePath, httpMethod, operation);
+        stopTimer(GenerationListener.OPERATIONS, httpMethod.toUpperCase() + " " + resourcePath, started);
         co.tags = new ArrayList<String>();
         co.tags.add(sanitizeTag(tag));
 
@@ -265,28 +525,343 @@ public class DefaultGenerator implements Generator {
   }
 
   public File writeToFile(String filename, String contents) throws IOException {
-    System.out.println("writing file " + filename);
+    return writeToFile(filename, contents.getBytes("UTF-8"));
+  }
+
+  /**
+   * Writes the contents unless the file already holds exactly these bytes
+   * (when skipUnchanged is set).  With atomicWrites the contents go to a
+   * temp file in the same folder which is then renamed over the destination
+   */
+  public File writeToFile(String filename, byte[] contents) throws IOException {
     File output = new File(filename);
+    if(skipUnchanged && contentEquals(output, contents)) {
+      filesSkipped.incrementAndGet();
+      return output;
+    }
+    System.out.println("writing file " + filename);
 
     if(output.getParent() != null && !new File(output.getParent()).exists()) {
       File parent = new File(output.getParent());
       parent.mkdirs();
     }
-    Writer out = new BufferedWriter(new OutputStreamWriter(
-      new FileOutputStream(output), "UTF-8"));
+    File target = atomicWrites ? createTempFile(output) : output;
+    OutputStream out = new FileOutputStream(target);
+    try {
+      out.write(contents);
+    }
+    finally {
+      out.close();
+    }
+    if(target != output)
+      moveFile(target, output);
+    filesWritten.incrementAndGet();
+    return output;
+  }
 
-    out.write(contents);
-    out.close();
+  /**
+   * The sink handed to the config, which adds what the config writes to the
+   * files of this run.  Closing it is left to the owner of the real sink
+   */
+  protected OutputSink trackingSink(final List<File> files) {
+    return new OutputSink() {
+      public void write(String filename, byte[] contents) throws IOException {
+        writeOutput(filename, contents);
+        files.add(new File(filename));
+      }
+
+      public void write(String filename, Template template, Object data) throws IOException {
+        outputSink.write(filename, template, data);
+        filesWritten.incrementAndGet();
+        files.add(new File(filename));
+      }
+
+      public void close() {
+      }
+    };
+  }
+
+  protected void writeOutput(String filename, byte[] contents) throws IOException {
+    long[] started = startTimer();
+    if(outputSink != null) {
+      outputSink.write(filename, contents);
+      filesWritten.incrementAndGet();
+    }
+    else
+      writeToFile(filename, contents);
+    stopTimer(GenerationListener.WRITE, filename, started);
+  }
+
+  /**
+   * Renders a template into a file.  When the output is streamed, to a file
+   * or a sink, rendering and writing are reported together as render time
+   */
+  protected void renderToFile(String filename, String templateFile, Template tmpl, Object data) throws IOException {
+    long[] started = startTimer();
+    if(outputSink != null) {
+      outputSink.write(filename, tmpl, data);
+      filesWritten.incrementAndGet();
+    }
+    else if(streamOutput)
+      writeToFile(filename, tmpl, data);
+    else {
+      String contents = tmpl.execute(data);
+      stopTimer(GenerationListener.RENDER, templateFile, started);
+      started = startTimer();
+      writeToFile(filename, contents);
+      stopTimer(GenerationListener.WRITE, filename, started);
+      return;
+    }
+    stopTimer(GenerationListener.RENDER, templateFile, started);
+  }
+
+  /**
+   * The start time and the bytes the thread allocated so far, or null
+   * without a listener
+   */
+  protected long[] startTimer() {
+    if(listener == null)
+      return null;
+    long[] started = new long[2];
+    started[1] = allocatedBytes();
+    started[0] = System.nanoTime();
+    return started;
+  }
+
+  protected void stopTimer(String phase, String name, long[] started) {
+    if(listener == null || started == null)
+      return;
+    long nanos = System.nanoTime() - started[0];
+    long bytes = started[1] < 0 ? -1 : allocatedBytes() - started[1];
+    listener.record(phase, name, nanos, bytes);
+  }
+
+  /**
+   * Bytes allocated by the current thread, or -1 if the JVM doesn't say
+   */
+  static long allocatedBytes() {
+    if(ALLOCATION_COUNTER == null)
+      return -1;
+    return ALLOCATION_COUNTER.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTER = allocationCounter();
+
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    try {
+      java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+      if(threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+        ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+        return (com.sun.management.ThreadMXBean) threads;
+      }
+    }
+    catch (Throwable e) {
+      // not a HotSpot JVM
+    }
+    return null;
+  }
+
+  /**
+   * Executes the template straight into a buffered UTF-8 writer on the file,
+   * so the rendered output is never held in memory.  Unless both
+   * skipUnchanged and atomicWrites are off, the output goes to a temp file
+   * first and is compared with and then renamed over the destination
+   */
+  public File writeToFile(String filename, Template tmpl, Object data) throws IOException {
+    File output = new File(filename);
+    if(output.getParent() != null && !new File(output.getParent()).exists()) {
+      File parent = new File(output.getParent());
+      parent.mkdirs();
+    }
+    File target = (skipUnchanged || atomicWrites) ? createTempFile(output) : output;
+    Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), "UTF-8"), STREAM_BUFFER_SIZE);
+    boolean rendered = false;
+    try {
+      tmpl.execute(data, out);
+      rendered = true;
+    }
+    finally {
+      out.close();
+      if(!rendered && target != output)
+        target.delete();
+    }
+    if(target != output) {
+      if(skipUnchanged && contentEquals(output, target)) {
+        target.delete();
+        filesSkipped.incrementAndGet();
+        return output;
+      }
+      moveFile(target, output);
+    }
+    System.out.println("writing file " + filename);
+    filesWritten.incrementAndGet();
     return output;
   }
 
+  protected File createTempFile(File output) throws IOException {
+    return File.createTempFile("." + output.getName(), ".tmp", output.getAbsoluteFile().getParentFile());
+  }
+
+  protected void moveFile(File from, File to) throws IOException {
+    if(!from.renameTo(to)) {
+      // renameTo does not replace an existing file on every platform
+      to.delete();
+      if(!from.renameTo(to)) {
+        from.delete();
+        throw new IOException("unable to move " + from + " to " + to);
+      }
+    }
+  }
+
+  protected boolean contentEquals(File file, File other) throws IOException {
+    if(!file.isFile() || file.length() != other.length())
+      return false;
+    InputStream in = new FileInputStream(file);
+    try {
+      return contentEquals(in, new FileInputStream(other), (int) other.length());
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Compares the sizes first and only reads the file when they match
+   */
+  protected boolean contentEquals(File file, byte[] contents) throws IOException {
+    if(!file.isFile() || file.length() != contents.length)
+      return false;
+    return contentEquals(new FileInputStream(file), new ByteArrayInputStream(contents), contents.length);
+  }
+
+  /**
+   * Compares two streams of the given length chunk by chunk and closes the
+   * second one
+   */
+  private boolean contentEquals(InputStream in, InputStream other, int length) throws IOException {
+    try {
+      byte[] buffer = new byte[8192];
+      byte[] otherBuffer = new byte[8192];
+      int offset = 0;
+      while(offset < length) {
+        int read = in.read(buffer);
+        if(read == -1)
+          return false;
+        int otherRead = 0;
+        while(otherRead < read) {
+          int n = other.read(otherBuffer, otherRead, read - otherRead);
+          if(n == -1)
+            return false;
+          otherRead += n;
+        }
+        for(int i = 0; i < read; i++) {
+          if(buffer[i] != otherBuffer[i])
+            return false;
+        }
+        offset += read;
+      }
+      return in.read() == -1;
+    }
+    finally {
+      in.close();
+      other.close();
+    }
+  }
+
+
+
+  /**
+   * Returns the compiled template for a file in the config's template dir.
+   * Templates are compiled once and reused for every model, api and supporting file;
+   * file system templates are checked for changes once per generate()
+   */
+  public Template compileTemplate(String templateFile) {
+    long[] started = startTimer();
+    Template template = runTemplates.get(templateFile);
+    if(template == null) {
+      template = compileTemplate(config.templateDir(), templateFile);
+      runTemplates.put(templateFile, template);
+    }
+    stopTimer(GenerationListener.COMPILE, templateFile, started);
+    return template;
+  }
+
+  /**
+   * Compiles a template the way compileTemplate does on a miss, without
+   * putting it in the cache of compiled templates
+   */
+  public Template compileTemplateUncached(String templateFile) {
+    return compile(config.templateDir(), templateFile).template;
+  }
+
+  protected static Template compileTemplate(String templateDir, String templateFile) {
+    String name = templateDir + File.separator + templateFile;
+    CachedTemplate cached = compiledTemplates.get(name);
+    if(cached == null || !cached.isCurrent()) {
+      cached = compile(templateDir, templateFile);
+      compiledTemplates.put(name, cached);
+    }
+    return cached.template;
+  }
+
+  protected static CachedTemplate compile(String templateDir, String templateFile) {
+    String name = templateDir + File.separator + templateFile;
+    CachedTemplate cached = new CachedTemplate(name, templateLastModified(name));
+    cached.template = Mustache.compiler()
+      .withLoader(new PartialLoader(templateDir, cached))
+      .defaultValue("")
+      .compile(readCachedTemplate(name));
+    return cached;
+  }
+
+  protected static String readCachedTemplate(String name) {
+    CachedTemplate cached = templateSources.get(name);
+    if(cached == null || !cached.isCurrent()) {
+      cached = new CachedTemplate(name, templateLastModified(name));
+      cached.source = readTemplateSource(name);
+      templateSources.put(name, cached);
+    }
+    return cached.source;
+  }
+
+  /**
+   * Templates on the classpath never change, so they report 0.  Overrides on
+   * the file system (-t) report their mtime
+   */
+  protected static long templateLastModified(String name) {
+    URL url = DefaultGenerator.class.getClassLoader().getResource(getCPResourcePath(name));
+    if(url != null)
+      return 0;
+    return new File(name).lastModified();
+  }
+
+  /**
+   * @deprecated templates are loaded and cached by {@link #compileTemplate(String)},
+   * which doesn't call this; overriding it doesn't change the generated files
+   */
+  @Deprecated
   public String readTemplate(String name) {
+    return readTemplateSource(name);
+  }
+
+  /**
+   * @deprecated partials are loaded by {@link #compileTemplate(String)},
+   * which doesn't call this; overriding it doesn't change the generated files
+   */
+  @Deprecated
+  public Reader getTemplateReader(String name) {
+    return openTemplateReader(name);
+  }
+
+  private static String readTemplateSource(String name) {
     try{
-      Reader reader = getTemplateReader(name);
+      Reader reader = openTemplateReader(name);
       if(reader == null)
         throw new RuntimeException("no file found");
       java.util.Scanner s = new java.util.Scanner(reader).useDelimiter("\\A");
-      return s.hasNext() ? s.next() : "";
+      String template = s.hasNext() ? s.next() : "";
+      s.close();
+      return template;
     }
     catch(Exception e) {
       e.printStackTrace();
@@ -294,9 +869,9 @@ public class DefaultGenerator implements Generator {
     throw new RuntimeException("can't load template " + name);
   }
 
-  public Reader getTemplateReader(String name) {
+  private static Reader openTemplateReader(String name) {
     try{
-      InputStream is = this.getClass().getClassLoader().getResourceAsStream(getCPResourcePath(name));
+      InputStream is = DefaultGenerator.class.getClassLoader().getResourceAsStream(getCPResourcePath(name));
       if(is == null)
         is = new FileInputStream(new File(name));
       if(is == null)
@@ -308,8 +883,8 @@ public class DefaultGenerator implements Generator {
     }
     throw new RuntimeException("can't load template " + name);
   }
-  
-  private String getCPResourcePath(String name) {
+
+  private static String getCPResourcePath(String name) {
     if (!"/".equals(File.separator))
       return name.replaceAll(Pattern.quote(File.separator), "/");
     return name;
@@ -384,4 +959,48 @@ public Map<String, Object> processOperations(CodegenConfig config, String tag, L
 
     return objs;
   }
+
+  /**
+   * Resolves partials ({@code {{>name}}}) from the cached template sources and records
+   * them as dependencies of the template being compiled
+   */
+  protected static class PartialLoader implements Mustache.TemplateLoader {
+    private final String templateDir;
+    private final CachedTemplate owner;
+
+    PartialLoader(String templateDir, CachedTemplate owner) {
+      this.templateDir = templateDir;
+      this.owner = owner;
+    }
+
+    public Reader getTemplate(String name) {
+      String partial = templateDir + File.separator + name + ".mustache";
+      owner.dependencies.add(new CachedTemplate(partial, templateLastModified(partial)));
+      return new StringReader(readCachedTemplate(partial));
+    }
+  }
+
+  protected static class CachedTemplate {
+    final String name;
+    final long lastModified;
+    final List<CachedTemplate> dependencies = new CopyOnWriteArrayList<CachedTemplate>();
+    Template template;
+    String source;
+
+    CachedTemplate(String name, long lastModified) {
+      this.name = name;
+      this.lastModified = lastModified;
+    }
+
+    boolean isCurrent() {
+      // only file system templates have a modification time to check
+      if(lastModified != 0 && new File(name).lastModified() != lastModified)
+        return false;
+      for(CachedTemplate dependency : dependencies) {
+        if(!dependency.isCurrent())
+          return false;
+      }
+      return true;
+    }
+  }
 }
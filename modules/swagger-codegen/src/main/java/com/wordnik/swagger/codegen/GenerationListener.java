@@ -0,0 +1,20 @@
+package com.wordnik.swagger.codegen;
+
+/**
+ * Receives the time DefaultGenerator spends in each phase of a generation,
+ * and the bytes the step allocated, or -1 when the JVM can't tell.  Steps
+ * are reported as they finish, concurrently when the generator runs with
+ * more than one thread; the name says which model, operation, api, template
+ * or file the step was about.
+ */
+public interface GenerationListener {
+  String PROCESS_OPTS = "processOpts";
+  String MODELS = "models";
+  String OPERATIONS = "operations";
+  String APIS = "apis";
+  String COMPILE = "compile";
+  String RENDER = "render";
+  String WRITE = "write";
+
+  void record(String phase, String name, long nanos, long bytes);
+}
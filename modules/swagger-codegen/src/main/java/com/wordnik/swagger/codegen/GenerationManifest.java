@@ -0,0 +1,143 @@
+package com.wordnik.swagger.codegen;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a hash of the inputs of every file rendered into an output folder,
+ * so that a later incremental run can skip files whose inputs did not change.
+ *
+ * The manifest is stored as <code>.codegen-manifest</code> in the output
+ * folder, one <code>hash path</code> line per file, sorted by path.
+ */
+public class GenerationManifest {
+  public static final String FILENAME = ".codegen-manifest";
+
+  protected final File outputFolder;
+  protected final Map<String, String> previous = new HashMap<String, String>();
+  protected final Map<String, String> current = new ConcurrentHashMap<String, String>();
+  protected final Set<String> added = Collections.synchronizedSet(new TreeSet<String>());
+  protected final Set<String> changed = Collections.synchronizedSet(new TreeSet<String>());
+  protected final Set<String> unchanged = Collections.synchronizedSet(new TreeSet<String>());
+
+  public GenerationManifest(File outputFolder) {
+    this.outputFolder = outputFolder.getAbsoluteFile();
+  }
+
+  public static GenerationManifest load(String outputFolder) throws IOException {
+    GenerationManifest manifest = new GenerationManifest(new File(outputFolder));
+    File file = manifest.getFile();
+    if(file.exists()) {
+      for(String line : FileUtils.readLines(file, "UTF-8")) {
+        int split = line.indexOf(' ');
+        if(split > 0)
+          manifest.previous.put(line.substring(split + 1), line.substring(0, split));
+      }
+    }
+    return manifest;
+  }
+
+  public File getFile() {
+    return new File(outputFolder, FILENAME);
+  }
+
+  /**
+   * Records the input hash for a file and returns true when it has to be
+   * rendered: it is new, its inputs changed, or it was removed from disk
+   */
+  public boolean needsUpdate(String filename, String hash) {
+    String path = relativePath(filename);
+    current.put(path, hash);
+    String before = previous.get(path);
+    if(before == null) {
+      added.add(path);
+      return true;
+    }
+    if(!before.equals(hash) || !new File(filename).exists()) {
+      changed.add(path);
+      return true;
+    }
+    unchanged.add(path);
+    return false;
+  }
+
+  public Set<String> getAdded() {
+    return added;
+  }
+
+  public Set<String> getChanged() {
+    return changed;
+  }
+
+  public Set<String> getUnchanged() {
+    return unchanged;
+  }
+
+  /**
+   * Files listed by the previous run which were not produced by this one
+   */
+  public Set<String> getDeleted() {
+    Set<String> deleted = new TreeSet<String>(previous.keySet());
+    deleted.removeAll(current.keySet());
+    return deleted;
+  }
+
+  public void save() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for(String path : new TreeSet<String>(current.keySet())) {
+      sb.append(current.get(path)).append(' ').append(path).append('\n');
+    }
+    FileUtils.writeStringToFile(getFile(), sb.toString(), "UTF-8");
+  }
+
+  public void printReport() {
+    System.out.println("incremental generation: " + added.size() + " added, " + changed.size() + " changed, " +
+      unchanged.size() + " unchanged, " + getDeleted().size() + " deleted");
+    for(String path : added)
+      System.out.println("  added   " + path);
+    for(String path : changed)
+      System.out.println("  changed " + path);
+    for(String path : getDeleted())
+      System.out.println("  deleted " + path);
+  }
+
+  protected String relativePath(String filename) {
+    String path = new File(filename).getAbsolutePath();
+    String root = outputFolder.getPath() + File.separator;
+    if(path.startsWith(root))
+      path = path.substring(root.length());
+    return path.replace(File.separatorChar, '/');
+  }
+
+  /**
+   * SHA-1 over the given inputs, as a hex string
+   */
+  public static String hash(String... inputs) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      for(String input : inputs) {
+        if(input != null)
+          digest.update(input.getBytes("UTF-8"));
+        digest.update((byte) 0);
+      }
+      return toHex(digest.digest());
+    }
+    catch (Exception e) {
+      throw new RuntimeException("unable to hash generator inputs", e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for(byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+      sb.append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,242 @@
+package com.wordnik.swagger.codegen;
+
+import com.wordnik.swagger.util.Json;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects the steps reported by DefaultGenerator into a profile of one
+ * generation: totals per phase, render and compile time per template, and
+ * the slowest models and operations.
+ *
+ * Phase times are summed over all threads, and nested phases are counted in
+ * their parents as well: rendering and writing a model is part of its
+ * models step.  Allocated bytes are only reported when the JVM can measure
+ * them per thread.
+ */
+public class GenerationProfile implements GenerationListener {
+  protected final ConcurrentMap<String, Stat> phases = new ConcurrentHashMap<String, Stat>();
+  protected final ConcurrentMap<String, Stat> renders = new ConcurrentHashMap<String, Stat>();
+  protected final ConcurrentMap<String, Stat> compiles = new ConcurrentHashMap<String, Stat>();
+  protected final ConcurrentMap<String, Stat> models = new ConcurrentHashMap<String, Stat>();
+  protected final ConcurrentMap<String, Stat> operations = new ConcurrentHashMap<String, Stat>();
+  protected volatile boolean allocations = false;
+  protected volatile long started = 0;
+  protected volatile long wallNanos = 0;
+
+  public void record(String phase, String name, long nanos, long bytes) {
+    if(bytes >= 0)
+      allocations = true;
+    stat(phases, phase).add(nanos, bytes);
+    if(RENDER.equals(phase))
+      stat(renders, name).add(nanos, bytes);
+    else if(COMPILE.equals(phase))
+      stat(compiles, name).add(nanos, bytes);
+    else if(MODELS.equals(phase))
+      stat(models, name).add(nanos, bytes);
+    else if(OPERATIONS.equals(phase))
+      stat(operations, name).add(nanos, bytes);
+  }
+
+  /**
+   * Starts the wall clock of the generation
+   */
+  public void start() {
+    started = System.nanoTime();
+  }
+
+  public void stop() {
+    wallNanos = System.nanoTime() - started;
+  }
+
+  public long getWallNanos() {
+    return wallNanos;
+  }
+
+  public Map<String, Stat> getPhases() {
+    return phases;
+  }
+
+  /**
+   * A human readable report, listing the top slowest templates, models and
+   * operations
+   */
+  public String report(int top) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("generation profile: ").append(millis(wallNanos)).append(" ms wall time\n");
+    sb.append(String.format("  %-40s %8s %12s %12s%n", "phase", "count", "ms", "allocated"));
+    for(Map.Entry<String, Stat> phase : sortedByTime(phases, Integer.MAX_VALUE))
+      line(sb, phase.getKey(), phase.getValue());
+
+    sb.append(String.format("templates, top %d by render time%n", top));
+    sb.append(String.format("  %-40s %8s %12s %12s %12s%n", "template", "renders", "render ms", "compile ms", "allocated"));
+    for(Map.Entry<String, Stat> render : sortedByTime(templates(), top)) {
+      Stat compile = compiles.get(render.getKey());
+      Stat rendered = renders.get(render.getKey());
+      sb.append(String.format("  %-40s %8d %12s %12s %12s%n", render.getKey(),
+        rendered == null ? 0 : rendered.getCount(),
+        rendered == null ? "-" : millis(rendered.getNanos()),
+        compile == null ? "-" : millis(compile.getNanos()),
+        bytes(render.getValue().getBytes())));
+    }
+
+    sb.append(String.format("models, top %d by time%n", top));
+    for(Map.Entry<String, Stat> model : sortedByTime(models, top))
+      line(sb, model.getKey(), model.getValue());
+
+    sb.append(String.format("operations, top %d by time%n", top));
+    for(Map.Entry<String, Stat> operation : sortedByTime(operations, top))
+      line(sb, operation.getKey(), operation.getValue());
+    return sb.toString();
+  }
+
+  /**
+   * The same report as JSON; times are in milliseconds, allocations in bytes
+   * or -1 when they weren't measured
+   */
+  public String toJson(int top) {
+    return Json.pretty(toMap(top));
+  }
+
+  public Map<String, Object> toMap(int top) {
+    Map<String, Object> output = new LinkedHashMap<String, Object>();
+    output.put("wallMillis", millis(wallNanos));
+
+    Map<String, Object> phaseMap = new LinkedHashMap<String, Object>();
+    for(Map.Entry<String, Stat> phase : sortedByTime(phases, Integer.MAX_VALUE))
+      phaseMap.put(phase.getKey(), toMap(null, phase.getValue()));
+    output.put("phases", phaseMap);
+
+    List<Object> templateList = new ArrayList<Object>();
+    for(Map.Entry<String, Stat> template : sortedByTime(templates(), top)) {
+      Stat rendered = renders.get(template.getKey());
+      Stat compile = compiles.get(template.getKey());
+      Map<String, Object> entry = new LinkedHashMap<String, Object>();
+      entry.put("name", template.getKey());
+      entry.put("renders", rendered == null ? 0 : rendered.getCount());
+      entry.put("renderMillis", rendered == null ? 0 : millis(rendered.getNanos()));
+      entry.put("compileMillis", compile == null ? 0 : millis(compile.getNanos()));
+      entry.put("allocatedBytes", allocated(template.getValue()));
+      templateList.add(entry);
+    }
+    output.put("templates", templateList);
+
+    List<Object> modelList = new ArrayList<Object>();
+    for(Map.Entry<String, Stat> model : sortedByTime(models, top))
+      modelList.add(toMap(model.getKey(), model.getValue()));
+    output.put("models", modelList);
+
+    List<Object> operationList = new ArrayList<Object>();
+    for(Map.Entry<String, Stat> operation : sortedByTime(operations, top))
+      operationList.add(toMap(operation.getKey(), operation.getValue()));
+    output.put("operations", operationList);
+    return output;
+  }
+
+  /**
+   * Render and compile time of every template combined
+   */
+  protected Map<String, Stat> templates() {
+    Map<String, Stat> templates = new HashMap<String, Stat>();
+    for(Map<String, Stat> source : Arrays.asList(renders, compiles)) {
+      for(Map.Entry<String, Stat> entry : source.entrySet()) {
+        Stat stat = templates.get(entry.getKey());
+        if(stat == null) {
+          stat = new Stat();
+          templates.put(entry.getKey(), stat);
+        }
+        stat.add(entry.getValue());
+      }
+    }
+    return templates;
+  }
+
+  protected Map<String, Object> toMap(String name, Stat stat) {
+    Map<String, Object> entry = new LinkedHashMap<String, Object>();
+    if(name != null)
+      entry.put("name", name);
+    entry.put("count", stat.getCount());
+    entry.put("millis", millis(stat.getNanos()));
+    entry.put("allocatedBytes", allocated(stat));
+    return entry;
+  }
+
+  protected void line(StringBuilder sb, String name, Stat stat) {
+    sb.append(String.format("  %-40s %8d %12s %12s%n", name, stat.getCount(), millis(stat.getNanos()), bytes(stat.getBytes())));
+  }
+
+  protected long allocated(Stat stat) {
+    return allocations ? stat.getBytes() : -1;
+  }
+
+  protected String bytes(long bytes) {
+    if(!allocations)
+      return "n/a";
+    if(bytes < 1024)
+      return bytes + " B";
+    if(bytes < 1024 * 1024)
+      return String.format("%.1f KB", bytes / 1024.0);
+    return String.format("%.1f MB", bytes / (1024.0 * 1024));
+  }
+
+  static double millis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+
+  static List<Map.Entry<String, Stat>> sortedByTime(Map<String, Stat> stats, int top) {
+    List<Map.Entry<String, Stat>> entries = new ArrayList<Map.Entry<String, Stat>>(stats.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, Stat>>() {
+      public int compare(Map.Entry<String, Stat> a, Map.Entry<String, Stat> b) {
+        long diff = b.getValue().getNanos() - a.getValue().getNanos();
+        if(diff != 0)
+          return diff < 0 ? -1 : 1;
+        return a.getKey().compareTo(b.getKey());
+      }
+    });
+    return entries.size() > top ? entries.subList(0, top) : entries;
+  }
+
+  static Stat stat(ConcurrentMap<String, Stat> stats, String name) {
+    Stat stat = stats.get(name);
+    if(stat == null) {
+      Stat created = new Stat();
+      stat = stats.putIfAbsent(name, created);
+      if(stat == null)
+        stat = created;
+    }
+    return stat;
+  }
+
+  public static class Stat {
+    protected long count;
+    protected long nanos;
+    protected long bytes;
+
+    public synchronized void add(long nanos, long bytes) {
+      this.count++;
+      this.nanos += nanos;
+      if(bytes > 0)
+        this.bytes += bytes;
+    }
+
+    synchronized void add(Stat other) {
+      this.count += other.getCount();
+      this.nanos += other.getNanos();
+      this.bytes += other.getBytes();
+    }
+
+    public synchronized long getCount() {
+      return count;
+    }
+
+    public synchronized long getNanos() {
+      return nanos;
+    }
+
+    public synchronized long getBytes() {
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.wordnik.swagger.codegen;
+
+import com.samskivert.mustache.Template;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the generated files in memory, keyed by their path relative to the
+ * output folder
+ */
+public class MemoryOutputSink implements OutputSink {
+  protected final File outputFolder;
+  protected final Map<String, byte[]> files = new ConcurrentSkipListMap<String, byte[]>();
+
+  public MemoryOutputSink(String outputFolder) {
+    this.outputFolder = new File(outputFolder).getAbsoluteFile();
+  }
+
+  public void write(String filename, byte[] contents) throws IOException {
+    files.put(relativePath(filename), contents);
+  }
+
+  public void write(String filename, Template template, Object data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Writer out = new OutputStreamWriter(bytes, "UTF-8");
+    template.execute(data, out);
+    out.close();
+    files.put(relativePath(filename), bytes.toByteArray());
+  }
+
+  public void close() {
+  }
+
+  /**
+   * The generated files, sorted by path
+   */
+  public Map<String, byte[]> getFiles() {
+    return Collections.unmodifiableMap(files);
+  }
+
+  /**
+   * The contents of a generated file as a string, or null
+   */
+  public String getContents(String path) throws IOException {
+    byte[] contents = files.get(path);
+    return contents == null ? null : new String(contents, "UTF-8");
+  }
+
+  protected String relativePath(String filename) {
+    String path = new File(filename).getAbsolutePath();
+    String root = outputFolder.getPath() + File.separator;
+    if(path.startsWith(root))
+      path = path.substring(root.length());
+    return path.replace(File.separatorChar, '/');
+  }
+}
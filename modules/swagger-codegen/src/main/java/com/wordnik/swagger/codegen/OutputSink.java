@@ -0,0 +1,25 @@
+package com.wordnik.swagger.codegen;
+
+import com.samskivert.mustache.Template;
+
+import java.io.IOException;
+
+/**
+ * Receives the files rendered by DefaultGenerator.  Without a sink the
+ * generator writes to the file system; a sink can keep the output in memory
+ * or stream it into a zip instead.
+ *
+ * Filenames are passed as the generator would write them, under the config's
+ * output folder.  Sinks must be thread safe, models and apis are rendered
+ * concurrently when the generator runs with more than one thread.
+ */
+public interface OutputSink {
+  void write(String filename, byte[] contents) throws IOException;
+
+  /**
+   * Renders the template with the given data as UTF-8 into the file
+   */
+  void write(String filename, Template template, Object data) throws IOException;
+
+  void close() throws IOException;
+}
@@ -0,0 +1,268 @@
+package com.wordnik.swagger.codegen;
+
+import com.wordnik.swagger.models.Swagger;
+import com.wordnik.swagger.models.auth.AuthorizationValue;
+import com.wordnik.swagger.util.Json;
+import com.wordnik.swagger.util.Yaml;
+
+import io.swagger.parser.Swagger20Parser;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.parser.SwaggerParserExtension;
+import io.swagger.parser.SwaggerResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the parsed JSON trees of specs read from URLs and files, so a spec
+ * that is generated from again and again is neither downloaded nor parsed
+ * again while it is unchanged.  HTTP specs are revalidated with their ETag
+ * or Last-Modified header, files with their size and modification time.
+ *
+ * The trees are shared and must not be modified; every read converts the
+ * tree into a new Swagger model, since generators modify the model.  Specs
+ * which aren't Swagger 2.0 are read by the SwaggerParser extensions.
+ */
+public class SpecCache {
+  public static final int DEFAULT_MAX_ENTRIES = 32;
+  static final int TIMEOUT = 30000;
+
+  private static volatile SpecCache instance;
+
+  static class Entry {
+    final JsonNode spec;
+    final String etag;
+    final String lastModified;
+    final long fileSize;
+    final long fileModified;
+    final String digest;
+
+    Entry(JsonNode spec, String etag, String lastModified, long fileSize, long fileModified, String digest) {
+      this.spec = spec;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.fileSize = fileSize;
+      this.fileModified = fileModified;
+      this.digest = digest;
+    }
+  }
+
+  protected final Map<String, Entry> entries;
+  protected final AtomicLong hits = new AtomicLong();
+  protected final AtomicLong misses = new AtomicLong();
+
+  public SpecCache(final int maxEntries) {
+    entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    });
+  }
+
+  public static SpecCache getInstance() {
+    if(instance == null) {
+      synchronized(SpecCache.class) {
+        if(instance == null)
+          instance = new SpecCache(DEFAULT_MAX_ENTRIES);
+      }
+    }
+    return instance;
+  }
+
+  public static synchronized void configure(int maxEntries) {
+    instance = new SpecCache(maxEntries);
+  }
+
+  /**
+   * Same as SwaggerParser.read(location, auths, resolve), but served from
+   * the cache while the spec is unchanged
+   */
+  public Swagger read(String location, List<AuthorizationValue> auths, boolean resolve) {
+    JsonNode spec = null;
+    try {
+      spec = readTree(location, auths);
+    }
+    catch (IOException e) {
+      System.out.println("unable to read " + location + ": " + e.getMessage());
+    }
+    if(spec == null)
+      return new SwaggerParser().read(location, auths, resolve);
+    if(spec.get("swagger") == null)
+      return readLegacy(location, spec, auths);
+    return toSwagger(spec, auths, resolve);
+  }
+
+  /**
+   * Offers a spec which isn't Swagger 2.0 to the parser extensions, with the
+   * tree already read before its location.  The 2.0 parser is skipped, as
+   * it would only download the spec again
+   */
+  protected Swagger readLegacy(String location, JsonNode spec, List<AuthorizationValue> auths) {
+    for(SwaggerParserExtension extension : new SwaggerParser().getExtensions()) {
+      if(extension instanceof Swagger20Parser)
+        continue;
+      try {
+        Swagger swagger = extension.read(spec);
+        if(swagger == null)
+          swagger = extension.read(location, auths);
+        if(swagger != null)
+          return swagger;
+      }
+      catch (IOException e) {
+        System.out.println("unable to read " + location + ": " + e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Converts a Swagger 2.0 tree into a new model, optionally resolving
+   * remote references
+   */
+  public Swagger toSwagger(JsonNode spec, List<AuthorizationValue> auths, boolean resolve) {
+    Swagger swagger = new SwaggerParser().read(spec);
+    if(swagger != null && resolve)
+      swagger = new SwaggerResolver().resolve(swagger, auths);
+    return swagger;
+  }
+
+  /**
+   * Returns the JSON tree of a spec on an http(s) or file URL or in a file,
+   * or null for locations it can't read
+   */
+  public JsonNode readTree(String location, List<AuthorizationValue> auths) throws IOException {
+    String lower = location.toLowerCase();
+    if(lower.startsWith("http:") || lower.startsWith("https:"))
+      return readUrl(location, auths);
+    File file = lower.startsWith("file:") ? FileUtils.toFile(new URL(location)) : new File(location);
+    if(file == null || !file.isFile())
+      return null;
+    return readFile(location, file);
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  protected JsonNode readFile(String location, File file) throws IOException {
+    String key = file.getAbsolutePath();
+    Entry cached = entries.get(key);
+    long size = file.length();
+    long modified = file.lastModified();
+    if(cached != null && cached.fileSize == size && cached.fileModified == modified) {
+      hits.incrementAndGet();
+      return cached.spec;
+    }
+    misses.incrementAndGet();
+    JsonNode spec = mapper(location, null).readTree(file);
+    entries.put(key, new Entry(spec, null, null, size, modified, null));
+    return spec;
+  }
+
+  protected JsonNode readUrl(String location, List<AuthorizationValue> auths) throws IOException {
+    String key = key(location, auths);
+    Entry cached = entries.get(key);
+
+    StringBuilder url = new StringBuilder(location);
+    List<AuthorizationValue> headers = new ArrayList<AuthorizationValue>();
+    if(auths != null) {
+      for(AuthorizationValue auth : auths) {
+        if("query".equals(auth.getType())) {
+          url.append(url.indexOf("?") < 0 ? '?' : '&')
+            .append(URLEncoder.encode(auth.getKeyName(), "UTF-8"))
+            .append('=')
+            .append(URLEncoder.encode(auth.getValue(), "UTF-8"));
+        }
+        else if("header".equals(auth.getType()))
+          headers.add(auth);
+      }
+    }
+
+    HttpURLConnection connection = (HttpURLConnection) new URL(url.toString()).openConnection();
+    connection.setConnectTimeout(TIMEOUT);
+    connection.setReadTimeout(TIMEOUT);
+    connection.setRequestProperty("Accept", "application/json, application/yaml, */*");
+    for(AuthorizationValue header : headers)
+      connection.setRequestProperty(header.getKeyName(), header.getValue());
+    if(cached != null && cached.etag != null)
+      connection.setRequestProperty("If-None-Match", cached.etag);
+    if(cached != null && cached.lastModified != null)
+      connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+
+    try {
+      int status = connection.getResponseCode();
+      if(status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+        hits.incrementAndGet();
+        return cached.spec;
+      }
+      if(status != HttpURLConnection.HTTP_OK)
+        throw new IOException("unable to read " + location + ", got HTTP " + status);
+
+      byte[] body;
+      InputStream in = connection.getInputStream();
+      try {
+        body = IOUtils.toByteArray(in);
+      }
+      finally {
+        in.close();
+      }
+      // without validators the spec has to be downloaded every time, but an
+      // unchanged body needn't be parsed again
+      String digest = GenerationManifest.hash(new String(body, "UTF-8"));
+      JsonNode spec;
+      if(cached != null && digest.equals(cached.digest)) {
+        hits.incrementAndGet();
+        spec = cached.spec;
+      }
+      else {
+        misses.incrementAndGet();
+        spec = mapper(location, connection.getContentType()).readTree(body);
+      }
+      entries.put(key, new Entry(spec, connection.getHeaderField("ETag"),
+        connection.getHeaderField("Last-Modified"), -1, -1, digest));
+      return spec;
+    }
+    finally {
+      connection.disconnect();
+    }
+  }
+
+  protected ObjectMapper mapper(String location, String contentType) {
+    String lower = location.toLowerCase();
+    if(lower.endsWith(".yaml") || lower.endsWith(".yml") || (contentType != null && contentType.toLowerCase().contains("yaml")))
+      return Yaml.mapper();
+    return Json.mapper();
+  }
+
+  /**
+   * The same URL read with other credentials may be another spec
+   */
+  protected String key(String location, List<AuthorizationValue> auths) {
+    StringBuilder sb = new StringBuilder(location);
+    if(auths != null) {
+      for(AuthorizationValue auth : auths)
+        sb.append('\u0000').append(auth.getType()).append(':').append(auth.getKeyName()).append('=').append(auth.getValue());
+    }
+    return sb.toString();
+  }
+}
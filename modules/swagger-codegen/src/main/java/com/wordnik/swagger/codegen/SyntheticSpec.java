@@ -0,0 +1,303 @@
+package com.wordnik.swagger.codegen;
+
+import com.wordnik.swagger.models.*;
+import com.wordnik.swagger.models.parameters.*;
+import com.wordnik.swagger.models.properties.*;
+import com.wordnik.swagger.util.Json;
+
+import org.apache.commons.cli.*;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Builds large, deterministic Swagger 2.0 specs for scale testing.  The same
+ * parameters and seed always produce the same spec.
+ *
+ * Models are laid out in <code>depth + 1</code> levels: model i sits on level
+ * <code>i % (depth + 1)</code> and only references models of the level below,
+ * so $ref chains are at most <code>depth</code> long.  Operations are spread
+ * over <code>tags</code> tags and cycle through get, post, put and delete.
+ */
+public class SyntheticSpec {
+  protected int models = 100;
+  protected int propertiesPerModel = 8;
+  protected int depth = 3;
+  protected int enumValues = 5;
+  protected int tags = 10;
+  protected int operationsPerTag = 10;
+  protected int queryParams = 2;
+  protected int headerParams = 1;
+  protected int formParams = 0;
+  protected boolean bodyParams = true;
+  protected long seed = 1;
+
+  public SyntheticSpec models(int models) {
+    this.models = models;
+    return this;
+  }
+
+  public SyntheticSpec propertiesPerModel(int propertiesPerModel) {
+    this.propertiesPerModel = propertiesPerModel;
+    return this;
+  }
+
+  public SyntheticSpec depth(int depth) {
+    this.depth = depth;
+    return this;
+  }
+
+  public SyntheticSpec enumValues(int enumValues) {
+    this.enumValues = enumValues;
+    return this;
+  }
+
+  public SyntheticSpec tags(int tags) {
+    this.tags = tags;
+    return this;
+  }
+
+  public SyntheticSpec operationsPerTag(int operationsPerTag) {
+    this.operationsPerTag = operationsPerTag;
+    return this;
+  }
+
+  public SyntheticSpec queryParams(int queryParams) {
+    this.queryParams = queryParams;
+    return this;
+  }
+
+  public SyntheticSpec headerParams(int headerParams) {
+    this.headerParams = headerParams;
+    return this;
+  }
+
+  /**
+   * Form parameters are used by post and put operations without a body
+   */
+  public SyntheticSpec formParams(int formParams) {
+    this.formParams = formParams;
+    return this;
+  }
+
+  public SyntheticSpec bodyParams(boolean bodyParams) {
+    this.bodyParams = bodyParams;
+    return this;
+  }
+
+  public SyntheticSpec seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public Swagger build() {
+    Random random = new Random(seed);
+    Swagger swagger = new Swagger()
+      .info(new Info()
+        .title("Synthetic API")
+        .description(models + " models, " + (tags * operationsPerTag) + " operations")
+        .version("1.0.0"))
+      .host("localhost")
+      .basePath("/v1")
+      .scheme(Scheme.HTTP)
+      .produces("application/json");
+
+    for(int i = 0; i < models; i++)
+      swagger.model(modelName(i), model(i, random));
+
+    for(int t = 0; t < tags; t++) {
+      String tag = tagName(t);
+      swagger.tag(new Tag().name(tag).description("operations of " + tag));
+      for(int j = 0; j < operationsPerTag; j++) {
+        int n = t * operationsPerTag + j;
+        String method = METHODS[n % METHODS.length];
+        swagger.path("/" + tag + "/resource" + j + "/{id}", new Path().set(method, operation(tag, n, method, random)));
+      }
+    }
+    return swagger;
+  }
+
+  public String toJson() {
+    return Json.pretty(build());
+  }
+
+  static final String[] METHODS = {"get", "post", "put", "delete"};
+
+  protected String modelName(int i) {
+    return "Model" + i;
+  }
+
+  /**
+   * tagA, tagB, ... tagBA: api names are derived from tags and drop digits
+   */
+  protected String tagName(int t) {
+    StringBuilder sb = new StringBuilder();
+    do {
+      sb.insert(0, (char) ('A' + t % 26));
+      t /= 26;
+    } while(t > 0);
+    return "tag" + sb;
+  }
+
+  protected int level(int i) {
+    return i % (depth + 1);
+  }
+
+  protected Model model(int i, Random random) {
+    ModelImpl model = new ModelImpl()
+      .description("synthetic model " + i + " on level " + level(i))
+      .property("id", new LongProperty())
+      .required("id");
+    for(int p = 1; p < propertiesPerModel; p++) {
+      String name = "property" + p;
+      model.property(name, property(i, p, random));
+      if(random.nextInt(4) == 0)
+        model.required(name);
+    }
+    return model;
+  }
+
+  protected Property property(int i, int p, Random random) {
+    int kind = random.nextInt(10);
+    // the lowest level has nothing to reference
+    if(kind >= 7 && level(i) == 0)
+      kind = random.nextInt(7);
+    switch(kind) {
+      case 0:
+        return new StringProperty().description("string property " + p);
+      case 1:
+        return new IntegerProperty();
+      case 2:
+        return new DoubleProperty();
+      case 3:
+        return new BooleanProperty();
+      case 4:
+        return new DateTimeProperty();
+      case 5: {
+        List<String> values = new ArrayList<String>();
+        for(int v = 0; v < enumValues; v++)
+          values.add("value" + v);
+        return new StringProperty()._enum(values);
+      }
+      case 6:
+        return new ArrayProperty(new StringProperty());
+      case 7:
+        return new RefProperty(modelName(referenced(i, random)));
+      case 8:
+        return new ArrayProperty(new RefProperty(modelName(referenced(i, random))));
+      default:
+        return new MapProperty(new RefProperty(modelName(referenced(i, random))));
+    }
+  }
+
+  /**
+   * A model on the level below model i
+   */
+  protected int referenced(int i, Random random) {
+    int below = i - 1;
+    int levels = depth + 1;
+    int candidates = below / levels + 1;
+    return below - random.nextInt(candidates) * levels;
+  }
+
+  protected Operation operation(String tag, int n, String method, Random random) {
+    String model = modelName(n % Math.max(models, 1));
+    Operation operation = new Operation()
+      .tag(tag)
+      .operationId(method + "Resource" + n)
+      .summary(method + " resource " + n)
+      .parameter(new PathParameter().name("id").property(new LongProperty()));
+
+    for(int q = 0; q < queryParams; q++) {
+      QueryParameter parameter = new QueryParameter().name("query" + q);
+      if(q % 3 == 2)
+        parameter.array(true).items(new StringProperty()).collectionFormat("csv");
+      else
+        parameter.property(q % 3 == 0 ? new StringProperty() : new IntegerProperty());
+      operation.parameter(parameter);
+    }
+    for(int h = 0; h < headerParams; h++)
+      operation.parameter(new HeaderParameter().name("X-Header-" + h).property(new StringProperty()));
+
+    boolean write = "post".equals(method) || "put".equals(method);
+    if(write && bodyParams && models > 0) {
+      operation.consumes("application/json");
+      operation.parameter(new BodyParameter().name("body").schema(new RefModel(model)));
+    }
+    else if(write && formParams > 0) {
+      operation.consumes("application/x-www-form-urlencoded");
+      for(int f = 0; f < formParams; f++)
+        operation.parameter(new FormParameter().name("form" + f).property(new StringProperty()));
+    }
+
+    Response ok = new Response().description("successful operation");
+    if("get".equals(method) && models > 0)
+      ok.schema(random.nextBoolean() ? new RefProperty(model) : new ArrayProperty(new RefProperty(model)));
+    operation.response(200, ok);
+    operation.response(404, new Response().description("not found"));
+    return operation;
+  }
+
+  /**
+   * Writes a synthetic spec as JSON to a file or stdout
+   */
+  public static void main(String[] args) throws Exception {
+    Options options = new Options();
+    options.addOption("h", "help", false, "shows this message");
+    options.addOption("o", "output", true, "file to write the spec to, defaults to stdout");
+    options.addOption(null, "models", true, "number of models");
+    options.addOption(null, "properties", true, "properties per model");
+    options.addOption(null, "depth", true, "maximum length of $ref chains");
+    options.addOption(null, "enum-values", true, "values of every enum property");
+    options.addOption(null, "tags", true, "number of tags");
+    options.addOption(null, "operations-per-tag", true, "operations per tag");
+    options.addOption(null, "query-params", true, "query parameters per operation");
+    options.addOption(null, "header-params", true, "header parameters per operation");
+    options.addOption(null, "form-params", true, "form parameters of post and put operations without a body");
+    options.addOption(null, "no-body", false, "don't add body parameters to post and put operations");
+    options.addOption(null, "seed", true, "random seed");
+
+    CommandLine cmd;
+    try {
+      cmd = new BasicParser().parse(options, args);
+    }
+    catch (ParseException e) {
+      new HelpFormatter().printHelp("SyntheticSpec", options);
+      return;
+    }
+    if(cmd.hasOption("h")) {
+      new HelpFormatter().printHelp("SyntheticSpec", options);
+      return;
+    }
+    SyntheticSpec spec = new SyntheticSpec();
+    if(cmd.hasOption("models"))
+      spec.models(Integer.parseInt(cmd.getOptionValue("models")));
+    if(cmd.hasOption("properties"))
+      spec.propertiesPerModel(Integer.parseInt(cmd.getOptionValue("properties")));
+    if(cmd.hasOption("depth"))
+      spec.depth(Integer.parseInt(cmd.getOptionValue("depth")));
+    if(cmd.hasOption("enum-values"))
+      spec.enumValues(Integer.parseInt(cmd.getOptionValue("enum-values")));
+    if(cmd.hasOption("tags"))
+      spec.tags(Integer.parseInt(cmd.getOptionValue("tags")));
+    if(cmd.hasOption("operations-per-tag"))
+      spec.operationsPerTag(Integer.parseInt(cmd.getOptionValue("operations-per-tag")));
+    if(cmd.hasOption("query-params"))
+      spec.queryParams(Integer.parseInt(cmd.getOptionValue("query-params")));
+    if(cmd.hasOption("header-params"))
+      spec.headerParams(Integer.parseInt(cmd.getOptionValue("header-params")));
+    if(cmd.hasOption("form-params"))
+      spec.formParams(Integer.parseInt(cmd.getOptionValue("form-params")));
+    if(cmd.hasOption("no-body"))
+      spec.bodyParams(false);
+    if(cmd.hasOption("seed"))
+      spec.seed(Long.parseLong(cmd.getOptionValue("seed")));
+
+    String json = spec.toJson();
+    if(cmd.hasOption("o"))
+      FileUtils.writeStringToFile(new File(cmd.getOptionValue("o")), json, "UTF-8");
+    else
+      System.out.println(json);
+  }
+}
@@ -0,0 +1,80 @@
+package com.wordnik.swagger.codegen;
+
+import com.samskivert.mustache.Template;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders the generated files straight into zip entries on a stream, so
+ * nothing is written to or read back from the file system.  Entries are
+ * named by their path relative to the output folder, below an optional
+ * prefix folder.  Entries are written one at a time, concurrent writes wait
+ * for each other.
+ */
+public class ZipOutputSink implements OutputSink {
+  private static final int BUFFER_SIZE = 8192;
+
+  protected final File outputFolder;
+  protected final String prefix;
+  protected final ZipOutputStream zip;
+  protected final Set<String> entries = new HashSet<String>();
+
+  public ZipOutputSink(String outputFolder, String prefix, OutputStream out) {
+    this.outputFolder = new File(outputFolder).getAbsoluteFile();
+    this.prefix = prefix == null || prefix.length() == 0 ? "" : prefix + "/";
+    this.zip = new ZipOutputStream(out);
+  }
+
+  public synchronized void write(String filename, byte[] contents) throws IOException {
+    if(!startEntry(filename))
+      return;
+    zip.write(contents);
+    zip.closeEntry();
+  }
+
+  public synchronized void write(String filename, Template template, Object data) throws IOException {
+    if(!startEntry(filename))
+      return;
+    // flushed rather than closed, closing would close the zip stream
+    Writer out = new BufferedWriter(new OutputStreamWriter(zip, "UTF-8"), BUFFER_SIZE);
+    template.execute(data, out);
+    out.flush();
+    zip.closeEntry();
+  }
+
+  /**
+   * Finishes the zip and closes the underlying stream
+   */
+  public synchronized void close() throws IOException {
+    zip.close();
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * A zip can't hold the same entry twice, a file written again is dropped
+   */
+  protected boolean startEntry(String filename) throws IOException {
+    String name = prefix + relativePath(filename);
+    if(!entries.add(name)) {
+      System.out.println("skipping duplicate zip entry " + name);
+      return false;
+    }
+    zip.putNextEntry(new ZipEntry(name));
+    return true;
+  }
+
+  protected String relativePath(String filename) {
+    String path = new File(filename).getAbsolutePath();
+    String root = outputFolder.getPath() + File.separator;
+    if(path.startsWith(root))
+      path = path.substring(root.length());
+    return path.replace(File.separatorChar, '/');
+  }
+}
@@ -38,6 +38,10 @@ public class AndroidClientCodegen extends DefaultCodegen implements CodegenConfi
     additionalProperties.put("groupId", groupId);
     additionalProperties.put("artifactId", artifactId);
     additionalProperties.put("artifactVersion", artifactVersion);
+    // responses are gzipped, request bodies are sent as they are unless a threshold is set
+    additionalProperties.put("acceptCompressed", Boolean.TRUE);
+    additionalProperties.put("requestCompression", "gzip");
+    additionalProperties.put("requestCompressionThreshold", -1);
 
     supportingFiles.add(new SupportingFile("pom.mustache", "", "pom.xml"));
     supportingFiles.add(new SupportingFile("apiInvoker.mustache", 
@@ -64,6 +68,13 @@ public class AndroidClientCodegen extends DefaultCodegen implements CodegenConfi
     instantiationTypes.put("map", "HashMap");
   }
 
+  @Override
+  public void processOpts() {
+    super.processOpts();
+    RequestCompression.processOpts(additionalProperties);
+    booleanOption("async");
+  }
+
   @Override
   public String escapeReservedWord(String name) {
     return "_" + name;
@@ -1,6 +1,7 @@
 package com.wordnik.swagger.codegen.languages;
 
 import com.wordnik.swagger.codegen.*;
+import com.wordnik.swagger.models.Operation;
 import com.wordnik.swagger.models.properties.*;
 
 import java.util.*;
@@ -49,6 +50,10 @@ public class JavaClientCodegen extends DefaultCodegen implements CodegenConfig {
     additionalProperties.put("groupId", groupId);
     additionalProperties.put("artifactId", artifactId);
     additionalProperties.put("artifactVersion", artifactVersion);
+    // responses are gzipped, request bodies are sent as they are unless a threshold is set
+    additionalProperties.put("acceptCompressed", Boolean.TRUE);
+    additionalProperties.put("requestCompression", "gzip");
+    additionalProperties.put("requestCompressionThreshold", -1);
 
     // supportingFiles.add(new SupportingFile("pom.mustache", "", "pom.xml"));
     // supportingFiles.add(new SupportingFile("apiInvoker.mustache",
@@ -73,6 +78,14 @@ public class JavaClientCodegen extends DefaultCodegen implements CodegenConfig {
     instantiationTypes.put("map", "HashMap");
   }
 
+  @Override
+  public void processOpts() {
+    super.processOpts();
+    RequestCompression.processOpts(additionalProperties);
+    booleanOption("lazyLists");
+    booleanOption("async");
+  }
+
   @Override
   public String toVarName(String name) {
      if(reservedWords.contains(name))
@@ -112,6 +125,15 @@ public class JavaClientCodegen extends DefaultCodegen implements CodegenConfig {
     return property;
   }
 
+  @Override
+  public CodegenOperation fromOperation(String path, String httpMethod, Operation operation) {
+    CodegenOperation op = super.fromOperation(path, httpMethod, operation);
+    // arrays are returned as lists, which the lazyLists option can iterate over
+    if("array".equals(op.returnContainer))
+      op.isListContainer = Boolean.TRUE;
+    return op;
+  }
+
   @Override
   public String escapeReservedWord(String name) {
     return "_" + name;
@@ -0,0 +1,28 @@
+package com.wordnik.swagger.codegen.languages;
+
+import java.util.Map;
+
+/**
+ * The requestCompression and requestCompressionThreshold options of the
+ * Java, Android and Scala invokers, which write them into the generated code
+ */
+public class RequestCompression {
+  /**
+   * Parses the threshold and rejects codecs the invokers can't send.  Called
+   * from the processOpts of the configs whose invokers compress requests
+   */
+  public static void processOpts(Map<String, Object> additionalProperties) {
+    Object threshold = additionalProperties.get("requestCompressionThreshold");
+    if(threshold != null) {
+      try {
+        additionalProperties.put("requestCompressionThreshold", Integer.valueOf(threshold.toString().trim()));
+      }
+      catch (NumberFormatException e) {
+        throw new IllegalArgumentException("requestCompressionThreshold must be a number of bytes, not " + threshold);
+      }
+    }
+    Object compression = additionalProperties.get("requestCompression");
+    if(compression != null && !"gzip".equals(compression) && !"deflate".equals(compression))
+      throw new IllegalArgumentException("requestCompression must be gzip or deflate, not " + compression);
+  }
+}
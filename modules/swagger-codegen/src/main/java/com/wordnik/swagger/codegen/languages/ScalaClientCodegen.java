@@ -53,6 +53,10 @@ public class ScalaClientCodegen extends DefaultCodegen implements CodegenConfig
     additionalProperties.put("asyncHttpClient", asyncHttpClient);
     additionalProperties.put("authScheme", authScheme);
     additionalProperties.put("authPreemptive", authPreemptive);
+    // responses are gzipped, request bodies are sent as they are unless a threshold is set
+    additionalProperties.put("acceptCompressed", Boolean.TRUE);
+    additionalProperties.put("requestCompression", "gzip");
+    additionalProperties.put("requestCompressionThreshold", -1);
 
     supportingFiles.add(new SupportingFile("pom.mustache", "", "pom.xml"));
     supportingFiles.add(new SupportingFile("apiInvoker.mustache", 
@@ -99,6 +103,12 @@ public class ScalaClientCodegen extends DefaultCodegen implements CodegenConfig
     instantiationTypes.put("map", "HashMap");
   }
 
+  @Override
+  public void processOpts() {
+    super.processOpts();
+    RequestCompression.processOpts(additionalProperties);
+  }
+
   @Override
   public String escapeReservedWord(String name) {
     return "_" + name;
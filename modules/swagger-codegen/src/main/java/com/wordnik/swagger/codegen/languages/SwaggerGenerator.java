@@ -4,8 +4,6 @@ import com.wordnik.swagger.codegen.*;
 import com.wordnik.swagger.util.*;
 import com.wordnik.swagger.models.Swagger;
 
-import org.apache.commons.io.FileUtils;
-
 import java.io.File;
 
 public class SwaggerGenerator extends DefaultCodegen implements CodegenConfig {
@@ -32,7 +30,7 @@ public class SwaggerGenerator extends DefaultCodegen implements CodegenConfig {
 
     try{
       String outputFile = outputFolder + File.separator + "swagger.json";
-      FileUtils.writeStringToFile(new File(outputFile), swaggerString);
+      writeFile(outputFile, swaggerString);
       System.out.println("wrote file to " + outputFile);
     }
     catch(Exception e) {
@@ -0,0 +1,59 @@
+import com.wordnik.swagger.codegen._
+
+import io.swagger.parser.SwaggerParser
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class BatchGeneratorTest extends FlatSpec with Matchers {
+  behavior of "BatchGenerator"
+
+  val spec = "src/test/resources/2_0/petstore.json"
+
+  def single(language: String, output: File) = {
+    val config = Codegen.getConfig(language)
+    config.setOutputDir(output.getAbsolutePath)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(new SwaggerParser().read(spec))
+    input.setConfig(config)
+    val sink = new MemoryOutputSink(output.getAbsolutePath)
+    val generator = new DefaultGenerator()
+    generator.setOutputSink(sink)
+    generator.opts(input).generate()
+    sink
+  }
+
+  it should "generate every language like a run of its own" in {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-batch-" + System.nanoTime())
+    val sink = new MemoryOutputSink(output.getAbsolutePath)
+    val batch = new BatchGenerator(spec, null)
+    batch.setOutputFolder(output.getAbsolutePath)
+    batch.setOutputSink(sink)
+    val files = batch.generate(List("java", "objc", "php").asJava)
+
+    files.keySet.asScala.toList should be (List("java", "objc", "php"))
+    for(language <- List("java", "objc", "php")) {
+      val expected = single(language, new File(output, language)).getFiles.asScala
+      files.get(language).size should be (expected.size)
+      for((path, contents) <- expected)
+        new String(sink.getFiles.get(language + "/" + path), "UTF-8") should be (new String(contents, "UTF-8"))
+    }
+    output.exists() should be (false)
+  }
+
+  it should "reject unknown languages before generating anything" in {
+    val batch = new BatchGenerator(spec, null)
+    val sink = new MemoryOutputSink("output")
+    batch.setOutputSink(sink)
+    intercept[RuntimeException] {
+      batch.generate(List("java", "no-such-language").asJava)
+    }
+    sink.getFiles.isEmpty should be (true)
+  }
+}
@@ -0,0 +1,54 @@
+import com.wordnik.swagger.codegen._
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.{ByteArrayOutputStream, File}
+
+@RunWith(classOf[JUnitRunner])
+class CodegenDaemonTest extends FlatSpec with Matchers {
+  behavior of "CodegenDaemon"
+
+  val spec = new File("src/test/resources/2_0/petstore.json").getAbsolutePath
+
+  it should "resolve relative paths against the client's directory" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-run-" + System.nanoTime())
+    Codegen.run(Array("-l", "java", "-i", spec, "-o", "out"), dir) should be (0)
+    new File(dir, "out/src/main/java/com/lamudi/networking/api/PetApi.java").exists should be (true)
+    Codegen.run(Array("-i", spec), dir) should be (1)
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "run forwarded generations and return their output" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-daemon-" + System.nanoTime())
+    val daemon = new CodegenDaemon(0, 2, new File(dir, "tokens"))
+    daemon.start()
+    try {
+      daemon.getTokenFile.exists should be (true)
+      val output = new ByteArrayOutputStream()
+      val status = CodegenDaemon.forward(daemon.getPort, Array("-l", "java", "-i", spec, "-o", new File(dir, "java").getPath), new File(dir, "tokens"), output)
+      status should be (0)
+      output.toString("UTF-8") should include ("PetApi.java")
+      new File(dir, "java/src/main/java/com/lamudi/networking/api/PetApi.java").exists should be (true)
+
+      CodegenDaemon.forward(daemon.getPort, Array("-l", "java"), new File(dir, "other"), output) should be (null)
+    }
+    finally {
+      daemon.stop()
+    }
+    daemon.getTokenFile.exists should be (false)
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "generate locally when the daemon port isn't a port" in {
+    Codegen.daemonPort(null) should be (null)
+    Codegen.daemonPort(" ") should be (null)
+    Codegen.daemonPort("abc") should be (null)
+    Codegen.daemonPort("70000") should be (null)
+    Codegen.daemonPort(" 8765 ") should be (8765)
+  }
+}
@@ -0,0 +1,34 @@
+import com.wordnik.swagger.codegen._
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+class CustomCodegenProperty extends CodegenProperty
+
+@RunWith(classOf[JUnitRunner])
+class CodegenModelFactoryTest extends FlatSpec with Matchers {
+  behavior of "CodegenModelFactory"
+
+  it should "create the default implementations" in {
+    CodegenModelFactory.newInstance[CodegenModel](CodegenModelType.MODEL).getClass should be (classOf[CodegenModel])
+    CodegenModelFactory.newInstance[CodegenResponse](CodegenModelType.RESPONSE).getClass should be (classOf[CodegenResponse])
+  }
+
+  it should "create a configured implementation" in {
+    CodegenModelFactory.setTypeMapping(CodegenModelType.PROPERTY, classOf[CustomCodegenProperty])
+    try {
+      CodegenModelFactory.newInstance[CodegenProperty](CodegenModelType.PROPERTY).getClass should be (classOf[CustomCodegenProperty])
+      CodegenModelFactory.newInstance[CodegenParameter](CodegenModelType.PARAMETER).getClass should be (classOf[CodegenParameter])
+    }
+    finally {
+      CodegenModelFactory.setTypeMapping(CodegenModelType.PROPERTY, classOf[CodegenProperty])
+    }
+    CodegenModelFactory.newInstance[CodegenProperty](CodegenModelType.PROPERTY).getClass should be (classOf[CodegenProperty])
+  }
+
+  it should "reject a class which does not extend the default implementation" in {
+    an [IllegalArgumentException] should be thrownBy CodegenModelFactory.setTypeMapping(CodegenModelType.MODEL, classOf[CodegenProperty])
+  }
+}
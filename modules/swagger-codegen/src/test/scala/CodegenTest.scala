@@ -1,8 +1,10 @@
 import com.wordnik.swagger.models._
+import com.wordnik.swagger.models.properties.{Property, RefProperty}
 import com.wordnik.swagger.util.Json
 import io.swagger.parser._
 
-import com.wordnik.swagger.codegen.DefaultCodegen
+import com.wordnik.swagger.codegen.{Codegen, DefaultCodegen}
+import com.wordnik.swagger.codegen.languages.JavaClientCodegen
 
 import org.junit.runner.RunWith
 import org.scalatest.junit.JUnitRunner
@@ -94,4 +96,47 @@ class CodegenTest extends FlatSpec with Matchers {
     statusParam.required should equal (false)    
     statusParam.hasMore should be (null)    
   }
-}
\ No newline at end of file
+
+  it should "create a new config for every lookup" in {
+    val first = Codegen.getConfig("java")
+    val second = Codegen.getConfig("java")
+
+    first should not be theSameInstanceAs (second)
+    first.setOutputDir("first")
+    second.getOutputDir() should not be ("first")
+  }
+
+  it should "resolve the type of equal references once" in {
+    var resolved = 0
+    val codegen = new DefaultCodegen() {
+      override def getTypeDeclaration(p: Property): String = {
+        if(p.isInstanceOf[RefProperty]) resolved += 1
+        super.getTypeDeclaration(p)
+      }
+    }
+    def model(description: String) = {
+      val category = new RefProperty("Category")
+      category.setDescription(description)
+      new ModelImpl().property("category", category)
+    }
+    val pet = codegen.fromModel("Pet", model("the pet's category"))
+    val store = codegen.fromModel("Store", model("the store's category"))
+
+    resolved should be (1)
+    pet.vars.get(0).datatype should be ("Category")
+    store.vars.get(0).datatype should be ("Category")
+    pet.vars.get(0).description should be ("the pet's category")
+    store.vars.get(0).description should be ("the store's category")
+    pet.vars.get(0) should not be theSameInstanceAs (store.vars.get(0))
+  }
+
+  it should "only turn the flags a config knows into booleans" in {
+    val config = new JavaClientCodegen()
+    config.additionalProperties.put("lazyLists", "true")
+    config.additionalProperties.put("hideGenerationTimestamp", "true")
+    config.processOpts()
+
+    config.additionalProperties.get("lazyLists") should be (java.lang.Boolean.TRUE)
+    config.additionalProperties.get("hideGenerationTimestamp") should be ("true")
+  }
+}
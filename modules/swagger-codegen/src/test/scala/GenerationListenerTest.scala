@@ -0,0 +1,44 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.JavaClientCodegen
+
+import io.swagger.parser._
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class GenerationListenerTest extends FlatSpec with Matchers {
+  behavior of "DefaultGenerator with a GenerationListener"
+
+  it should "report every phase of a generation" in {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-listener-" + System.nanoTime())
+    val steps = new ConcurrentLinkedQueue[(String, String, Long)]()
+    val config = new JavaClientCodegen()
+    config.setOutputDir(output.getAbsolutePath)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(new SwaggerParser().read("src/test/resources/2_0/petstore.json"))
+    input.setConfig(config)
+    val generator = new DefaultGenerator()
+    generator.setOutputSink(new MemoryOutputSink(output.getAbsolutePath))
+    generator.setThreads(2)
+    generator.setListener(new GenerationListener {
+      def record(phase: String, name: String, nanos: Long, bytes: Long) {
+        steps.add((phase, name, nanos))
+      }
+    })
+    generator.opts(input).generate()
+
+    val recorded = steps.asScala.toList
+    recorded.map(_._1).toSet should be (Set("processOpts", "models", "operations", "apis", "compile", "render"))
+    recorded.filter(_._1 == "models").map(_._2).toSet should be (Set("Category", "Order", "Pet", "Tag", "User"))
+    recorded.filter(_._1 == "operations").map(_._2) should contain ("GET /pet/{petId}")
+    recorded.filter(_._1 == "render").map(_._2).toSet should be (Set("model.mustache", "api.mustache"))
+    recorded.forall(_._3 >= 0) should be (true)
+  }
+}
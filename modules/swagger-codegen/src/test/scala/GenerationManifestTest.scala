@@ -0,0 +1,54 @@
+import com.wordnik.swagger.codegen._
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class GenerationManifestTest extends FlatSpec with Matchers {
+  behavior of "GenerationManifest"
+
+  it should "report added, changed, unchanged and deleted files" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-manifest-" + System.nanoTime())
+    val pet = new File(dir, "model/Pet.java")
+    val user = new File(dir, "model/User.java")
+    val order = new File(dir, "model/Order.java")
+
+    val first = GenerationManifest.load(dir.getPath)
+    first.needsUpdate(pet.getPath, GenerationManifest.hash("pet")) should be (true)
+    first.needsUpdate(user.getPath, GenerationManifest.hash("user")) should be (true)
+    first.needsUpdate(order.getPath, GenerationManifest.hash("order")) should be (true)
+    first.getAdded.asScala should be (Set("model/Order.java", "model/Pet.java", "model/User.java"))
+    first.save()
+    FileUtils.writeStringToFile(pet, "pet")
+    FileUtils.writeStringToFile(user, "user")
+
+    val second = GenerationManifest.load(dir.getPath)
+    second.needsUpdate(pet.getPath, GenerationManifest.hash("pet")) should be (false)
+    second.needsUpdate(user.getPath, GenerationManifest.hash("user v2")) should be (true)
+
+    second.getUnchanged.asScala should be (Set("model/Pet.java"))
+    second.getChanged.asScala should be (Set("model/User.java"))
+    second.getDeleted.asScala should be (Set("model/Order.java"))
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "render a file again when it was removed from disk" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-manifest-" + System.nanoTime())
+    val pet = new File(dir, "Pet.java")
+
+    val first = GenerationManifest.load(dir.getPath)
+    first.needsUpdate(pet.getPath, GenerationManifest.hash("pet"))
+    first.save()
+
+    GenerationManifest.load(dir.getPath).needsUpdate(pet.getPath, GenerationManifest.hash("pet")) should be (true)
+    FileUtils.deleteDirectory(dir)
+  }
+}
@@ -0,0 +1,46 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.util.Json
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+@RunWith(classOf[JUnitRunner])
+class GenerationProfileTest extends FlatSpec with Matchers {
+  behavior of "GenerationProfile"
+
+  it should "aggregate phases and rank templates, models and operations" in {
+    val profile = new GenerationProfile()
+    profile.record(GenerationListener.MODELS, "Pet", 3000000, 2048)
+    profile.record(GenerationListener.MODELS, "Tag", 1000000, 1024)
+    profile.record(GenerationListener.MODELS, "Order", 2000000, 1024)
+    profile.record(GenerationListener.OPERATIONS, "GET /pet", 500000, 100)
+    profile.record(GenerationListener.COMPILE, "model.mustache", 400000, 100)
+    profile.record(GenerationListener.RENDER, "model.mustache", 1000000, 300)
+    profile.record(GenerationListener.RENDER, "model.mustache", 1000000, 300)
+
+    profile.getPhases.get("models").getCount should be (3)
+    profile.getPhases.get("models").getNanos should be (6000000)
+
+    val json = Json.mapper().readTree(profile.toJson(2))
+    json.get("models").size should be (2)
+    json.get("models").get(0).get("name").asText should be ("Pet")
+    json.get("models").get(1).get("name").asText should be ("Order")
+    json.get("phases").get("models").get("allocatedBytes").asLong should be (4096)
+    json.get("templates").get(0).get("renders").asLong should be (2)
+    json.get("templates").get(0).get("compileMillis").asDouble should be (0.4)
+    json.get("operations").get(0).get("name").asText should be ("GET /pet")
+
+    val report = profile.report(2)
+    report should include ("Pet")
+    report should not include ("Tag")
+  }
+
+  it should "leave allocations out when the JVM can't measure them" in {
+    val profile = new GenerationProfile()
+    profile.record(GenerationListener.MODELS, "Pet", 1000000, -1)
+    Json.mapper().readTree(profile.toJson(10)).get("models").get(0).get("allocatedBytes").asLong should be (-1)
+    profile.report(10) should include ("n/a")
+  }
+}
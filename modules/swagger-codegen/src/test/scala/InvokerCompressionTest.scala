@@ -0,0 +1,61 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.{AndroidClientCodegen, PhpClientCodegen, ScalaClientCodegen}
+
+import io.swagger.parser.SwaggerParser
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+@RunWith(classOf[JUnitRunner])
+class InvokerCompressionTest extends FlatSpec with Matchers {
+  behavior of "the requestCompression options"
+
+  def invoker(properties: Map[String, String]): String = {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-compression-" + System.nanoTime())
+    val config = new AndroidClientCodegen()
+    config.setOutputDir(output.getAbsolutePath)
+    val opts = new ClientOpts()
+    properties.foreach { case (key, value) => opts.getProperties.put(key, value) }
+    val input = new ClientOptInput().opts(opts).swagger(new SwaggerParser().read("src/test/resources/2_0/petstore.json"))
+    input.setConfig(config)
+    val sink = new MemoryOutputSink(output.getAbsolutePath)
+    val generator = new DefaultGenerator()
+    generator.setOutputSink(sink)
+    generator.opts(input).generate()
+    sink.getContents("src/main/java/io/swagger/client/ApiInvoker.java")
+  }
+
+  it should "accept gzip responses and leave requests uncompressed by default" in {
+    val source = invoker(Map())
+    source should include ("private volatile boolean acceptCompressed = true;")
+    source should include ("private volatile int requestCompressionThreshold = -1;")
+  }
+
+  it should "write the configured codec and threshold into the invoker" in {
+    val source = invoker(Map("acceptCompressed" -> "false", "requestCompression" -> "deflate", "requestCompressionThreshold" -> " 1024"))
+    source should include ("private volatile boolean acceptCompressed = false;")
+    source should include ("private volatile String requestCompression = \"deflate\";")
+    source should include ("private volatile int requestCompressionThreshold = 1024;")
+  }
+
+  it should "reject unknown codecs and thresholds" in {
+    def processOpts(config: DefaultCodegen, key: String, value: String) = {
+      config.additionalProperties.put(key, value)
+      config.processOpts()
+    }
+    an [IllegalArgumentException] should be thrownBy processOpts(new AndroidClientCodegen(), "requestCompression", "br")
+    an [IllegalArgumentException] should be thrownBy processOpts(new AndroidClientCodegen(), "requestCompressionThreshold", "1k")
+    an [IllegalArgumentException] should be thrownBy processOpts(new ScalaClientCodegen(), "requestCompression", "br")
+  }
+
+  it should "be left alone by languages without a compressing invoker" in {
+    val config = new PhpClientCodegen()
+    config.additionalProperties.put("requestCompressionThreshold", "1k")
+    config.processOpts()
+    config.additionalProperties.get("requestCompressionThreshold") should be ("1k")
+  }
+}
@@ -0,0 +1,84 @@
+package Java
+
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.{JavaClientCodegen, LamudiJavaClientCodegen}
+
+import io.swagger.parser.SwaggerParser
+
+import org.junit.runner.RunWith
+import org.scalatest.{FlatSpec, Matchers}
+import org.scalatest.junit.JUnitRunner
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class JavaApiTemplateTest extends FlatSpec with Matchers {
+  behavior of "the Java api template"
+
+  def petApi(properties: Map[String, String]): String =
+    generate(new JavaClientCodegen(), properties, "src/main/java/com/lamudi/networking/api/PetApi.java")
+
+  def generate(config: CodegenConfig, properties: Map[String, String], file: String): String = {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-java-api-" + System.nanoTime())
+    config.setOutputDir(output.getAbsolutePath)
+    val opts = new ClientOpts()
+    properties.foreach { case (key, value) => opts.getProperties.put(key, value) }
+    val input = new ClientOptInput().opts(opts).swagger(new SwaggerParser().read("src/test/resources/2_0/petstore.json"))
+    input.setConfig(config)
+    val sink = new MemoryOutputSink(output.getAbsolutePath)
+    val generator = new DefaultGenerator()
+    generator.setOutputSink(sink)
+    generator.opts(input).generate()
+    sink.getContents(file)
+  }
+
+  it should "deserialize responses through the invoker" in {
+    val api = petApi(Map())
+    api should include ("return (List<PetDTO>) apiInvoker.invokeAPI(basePath, path, \"GET\", queryParams, postBody, headerParams, formParams, contentType, \"array\", PetDTO.class);")
+    api should not include ("Iterator")
+  }
+
+  it should "add lazy iterators over returned lists with lazyLists=true" in {
+    val api = petApi(Map("lazyLists" -> "true"))
+    api should include ("public MappingIterator<PetDTO> findPetsByStatusIterator (List<String> status) throws ApiException {")
+    api should not include ("getPetByIdIterator")
+    petApi(Map("lazyLists" -> "false")) should not include ("Iterator")
+  }
+
+  it should "add asynchronous variants of every operation with async=true" in {
+    val api = petApi(Map("async" -> "true"))
+    api should include ("public Future<List<PetDTO>> findPetsByStatusAsync (final List<String> status, ApiInvoker.Callback<List<PetDTO>> _callback) {")
+    api should include ("public Future<Void> addPetAsync (final PetDTO body, ApiInvoker.Callback<Void> _callback) {")
+    api should include ("import java.util.concurrent.Future;")
+    petApi(Map()) should not include ("Async")
+  }
+
+  it should "build paths from literal segments" in {
+    val api = petApi(Map())
+    api should include ("String path = \"/pet/findByStatus\";")
+    api should include ("String path = new StringBuilder()\n      .append(\"/pet/\")\n      .append(apiInvoker.escapeString(petId.toString()))\n      .toString();")
+    api should not include ("replaceAll")
+  }
+
+  it should "build paths for the lamudijava generator too" in {
+    val api = generate(new LamudiJavaClientCodegen(), Map(), "src/main/java/com/lamudi/networking/api/service/PetService.java")
+    api should include ("String path = \"/pet/findByStatus\";")
+    api should include ("String path = new StringBuilder()\n      .append(\"/pet/\")\n      .append(apiInvoker.escapeString(petId.toString()))\n      .toString();")
+    api should not include ("String path = \"\";")
+  }
+
+  it should "split paths by the names parameters have in the spec" in {
+    val op = new CodegenOperation()
+    op.path = "/pet/{pet_id}.{format}/{unknown}\"s"
+    val param = new CodegenParameter()
+    param.baseName = "pet_id"
+    param.paramName = "petId"
+    op.pathParams.add(param)
+    new DefaultCodegen().pathSegments(op).asScala.map(_.asScala.toMap).toList should be (List(
+      Map("literal" -> "/pet/"),
+      Map("paramName" -> "petId"),
+      Map("literal" -> ".json/{unknown}\\\"s")))
+  }
+}
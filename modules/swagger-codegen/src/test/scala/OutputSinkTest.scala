@@ -0,0 +1,85 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.{JavaClientCodegen, SwaggerGenerator}
+
+import io.swagger.parser.SwaggerParser
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, File}
+import java.util.zip.ZipInputStream
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class OutputSinkTest extends FlatSpec with Matchers {
+  behavior of "DefaultGenerator with an OutputSink"
+
+  def generator(output: File, sink: OutputSink, config: CodegenConfig = new JavaClientCodegen()) = {
+    val swagger = new SwaggerParser().read("src/test/resources/2_0/petstore.json")
+    config.setOutputDir(output.getAbsolutePath)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(swagger)
+    input.setConfig(config)
+    val generator = new DefaultGenerator()
+    generator.opts(input)
+    generator.setOutputSink(sink)
+    generator
+  }
+
+  it should "render into memory without touching the file system" in {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-sink-" + System.nanoTime())
+    val sink = new MemoryOutputSink(output.getAbsolutePath)
+    val files = generator(output, sink).generate()
+
+    output.exists() should be (false)
+    sink.getFiles.size should be (files.size)
+    sink.getFiles.keySet.asScala should contain ("src/main/java/com/lamudi/networking/api/PetApi.java")
+    sink.getContents("src/main/java/com/lamudi/networking/api/dto/PetDTO.java") should include ("class PetDTO")
+  }
+
+  it should "stream the same files into a zip" in {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-sink-" + System.nanoTime())
+    val memory = new MemoryOutputSink(output.getAbsolutePath)
+    generator(output, memory).generate()
+
+    val bytes = new ByteArrayOutputStream()
+    val zip = new ZipOutputSink(output.getAbsolutePath, "java-client", bytes)
+    generator(output, zip).generate()
+    zip.close()
+    output.exists() should be (false)
+
+    val in = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray))
+    var entry = in.getNextEntry
+    var names = List[String]()
+    while(entry != null) {
+      names = entry.getName :: names
+      val contents = new ByteArrayOutputStream()
+      org.apache.commons.io.IOUtils.copy(in, contents)
+      contents.toByteArray should equal (memory.getFiles.get(entry.getName.substring("java-client/".length)))
+      entry = in.getNextEntry
+    }
+    names.map(_.substring("java-client/".length)).toSet should be (memory.getFiles.keySet.asScala.toSet)
+  }
+
+  it should "receive the files a config writes itself and nothing else" in {
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-sink-" + System.nanoTime())
+    val stray = new File(output, "notes.txt")
+    FileUtils.writeStringToFile(stray, "not generated")
+    try {
+      val sink = new MemoryOutputSink(output.getAbsolutePath)
+      val files = generator(output, sink, new SwaggerGenerator()).generate()
+
+      sink.getFiles.keySet.asScala.toSet should be (Set("swagger.json"))
+      sink.getContents("swagger.json") should include ("\"swagger\" : \"2.0\"")
+      files.size should be (1)
+      new File(output, "swagger.json").exists should be (false)
+    }
+    finally {
+      FileUtils.deleteQuietly(output)
+    }
+  }
+}
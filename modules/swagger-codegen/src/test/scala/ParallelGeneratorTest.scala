@@ -0,0 +1,46 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.JavaClientCodegen
+
+import io.swagger.parser._
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class ParallelGeneratorTest extends FlatSpec with Matchers {
+  behavior of "DefaultGenerator"
+
+  def generate(threads: Int, output: File) = {
+    val swagger = new SwaggerParser().read("src/test/resources/2_0/wordnik.json")
+    val config = new JavaClientCodegen()
+    config.setOutputDir(output.getAbsolutePath)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(swagger)
+    input.setConfig(config)
+    val generator = new DefaultGenerator()
+    generator.setThreads(threads)
+    generator.opts(input).generate().asScala.map(f => f.getAbsolutePath.substring(output.getAbsolutePath.length))
+  }
+
+  it should "render the same files in the same order with multiple threads" in {
+    val tmp = new File(System.getProperty("java.io.tmpdir"), "codegen-parallel-" + System.nanoTime())
+    val sequential = new File(tmp, "sequential")
+    val parallel = new File(tmp, "parallel")
+
+    val sequentialFiles = generate(1, sequential)
+    val parallelFiles = generate(4, parallel)
+
+    parallelFiles should be (sequentialFiles)
+    for(file <- sequentialFiles) {
+      FileUtils.readFileToString(new File(parallel, file)) should be (FileUtils.readFileToString(new File(sequential, file)))
+    }
+    FileUtils.deleteDirectory(tmp)
+  }
+}
@@ -0,0 +1,127 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.util.{Json, Yaml}
+
+import com.sun.net.httpserver.{HttpExchange, HttpHandler, HttpServer}
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+import java.net.InetSocketAddress
+
+@RunWith(classOf[JUnitRunner])
+class SpecCacheTest extends FlatSpec with Matchers {
+  behavior of "SpecCache"
+
+  val petstore = FileUtils.readFileToString(new File("src/test/resources/2_0/petstore.json"), "UTF-8")
+
+  it should "parse a file again only when it changed" in {
+    val file = new File(System.getProperty("java.io.tmpdir"), "codegen-spec-" + System.nanoTime() + ".json")
+    FileUtils.writeStringToFile(file, petstore, "UTF-8")
+    val cache = new SpecCache(2)
+
+    val first = cache.readTree(file.getPath, null)
+    cache.readTree(file.toURI.toString, null) should be theSameInstanceAs (first)
+    cache.getHits should be (1)
+
+    FileUtils.writeStringToFile(file, petstore.replace("Swagger Petstore", "Changed Petstore"), "UTF-8")
+    file.setLastModified(file.lastModified() + 2000)
+    cache.read(file.getPath, null, true).getInfo.getTitle should be ("Changed Petstore")
+    cache.getMisses should be (2)
+    file.delete()
+  }
+
+  it should "revalidate a url with its etag" in {
+    var requests = 0
+    var notModified = 0
+    val server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+    server.createContext("/petstore.json", new HttpHandler {
+      def handle(exchange: HttpExchange) {
+        requests += 1
+        if("\"v1\"" == exchange.getRequestHeaders.getFirst("If-None-Match")) {
+          notModified += 1
+          exchange.sendResponseHeaders(304, -1)
+        }
+        else {
+          val body = petstore.getBytes("UTF-8")
+          exchange.getResponseHeaders.add("ETag", "\"v1\"")
+          exchange.sendResponseHeaders(200, body.length)
+          exchange.getResponseBody.write(body)
+        }
+        exchange.close()
+      }
+    })
+    server.start()
+    try {
+      val url = "http://127.0.0.1:" + server.getAddress.getPort + "/petstore.json"
+      val cache = new SpecCache(2)
+      val first = cache.read(url, null, true)
+      val second = cache.read(url, null, true)
+
+      first.getInfo.getTitle should be ("Swagger Petstore")
+      second should not be theSameInstanceAs (first)
+      second.getPaths.keySet should be (first.getPaths.keySet)
+      requests should be (2)
+      notModified should be (1)
+      cache.getHits should be (1)
+    }
+    finally {
+      server.stop(0)
+    }
+  }
+
+  it should "keep at most the configured number of specs" in {
+    val cache = new SpecCache(1)
+    cache.readTree("src/test/resources/2_0/petstore.json", null)
+    cache.readTree("src/test/resources/2_0/wordnik.json", null)
+    cache.size should be (1)
+  }
+
+  it should "read local yml specs as yaml" in {
+    val file = new File(System.getProperty("java.io.tmpdir"), "codegen-spec-" + System.nanoTime() + ".yml")
+    FileUtils.writeStringToFile(file, Yaml.mapper().writeValueAsString(Json.mapper().readTree(petstore)), "UTF-8")
+    try {
+      new SpecCache(2).read(file.getPath, null, true).getInfo.getTitle should be ("Swagger Petstore")
+    }
+    finally {
+      file.delete()
+    }
+  }
+
+  it should "not download an older spec again for the 2.0 parser" in {
+    val dir = new File("src/test/resources/1_2/petstore-1.2")
+    var listings = 0
+    val server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+    server.createContext("/", new HttpHandler {
+      def handle(exchange: HttpExchange) {
+        val name = exchange.getRequestURI.getPath.substring(1)
+        if(name == "api-docs")
+          listings += 1
+        val file = new File(dir, name.stripPrefix("api-docs/"))
+        if(file.isFile) {
+          val body = FileUtils.readFileToByteArray(file)
+          exchange.sendResponseHeaders(200, body.length)
+          exchange.getResponseBody.write(body)
+        }
+        else
+          exchange.sendResponseHeaders(404, -1)
+        exchange.close()
+      }
+    })
+    server.start()
+    try {
+      val swagger = new SpecCache(2).read("http://127.0.0.1:" + server.getAddress.getPort + "/api-docs", null, true)
+
+      swagger.getPaths.keySet should contain ("/pet")
+      // once by the cache and once by the 1.2 converter, which can't take a tree
+      listings should be (2)
+    }
+    finally {
+      server.stop(0)
+    }
+  }
+}
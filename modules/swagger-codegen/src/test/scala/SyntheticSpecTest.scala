@@ -0,0 +1,66 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.JavaClientCodegen
+import com.wordnik.swagger.models.properties.RefProperty
+import com.wordnik.swagger.util.Json
+
+import io.swagger.parser._
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class SyntheticSpecTest extends FlatSpec with Matchers {
+  behavior of "SyntheticSpec"
+
+  it should "build the same spec for the same parameters" in {
+    val spec = new SyntheticSpec().models(50).tags(4).operationsPerTag(5)
+    spec.toJson() should be (spec.toJson())
+    spec.seed(2).toJson() should not be (new SyntheticSpec().models(50).tags(4).operationsPerTag(5).toJson())
+  }
+
+  it should "honor the model, property and operation counts" in {
+    val swagger = new SyntheticSpec().models(40).propertiesPerModel(6).tags(3).operationsPerTag(7).build()
+
+    swagger.getDefinitions.size should be (40)
+    swagger.getDefinitions.values.asScala.foreach(model => model.getProperties.size should be (6))
+    swagger.getTags.size should be (3)
+    swagger.getPaths.size should be (21)
+  }
+
+  it should "only reference models of the level below" in {
+    val depth = 2
+    val swagger = new SyntheticSpec().models(60).depth(depth).build()
+
+    for((name, model) <- swagger.getDefinitions.asScala; property <- model.getProperties.values.asScala) {
+      property match {
+        case ref: RefProperty =>
+          val level = name.substring("Model".length).toInt % (depth + 1)
+          ref.getSimpleRef.substring("Model".length).toInt % (depth + 1) should be (level - 1)
+        case _ =>
+      }
+    }
+  }
+
+  it should "produce a spec the generator can render" in {
+    val json = new SyntheticSpec().models(20).tags(2).operationsPerTag(4).formParams(1).toJson()
+    val swagger = new SwaggerParser().read(Json.mapper().readTree(json))
+    val output = new File(System.getProperty("java.io.tmpdir"), "codegen-synthetic-" + System.nanoTime())
+    val config = new JavaClientCodegen()
+    config.setOutputDir(output.getAbsolutePath)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(swagger)
+    input.setConfig(config)
+
+    val files = new DefaultGenerator().opts(input).generate()
+    files.asScala.count(_.getName.startsWith("Model")) should be (20)
+    files.asScala.count(_.getName.startsWith("Tag")) should be (2)
+    FileUtils.deleteDirectory(output)
+  }
+}
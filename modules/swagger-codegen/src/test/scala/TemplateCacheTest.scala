@@ -0,0 +1,85 @@
+import com.wordnik.swagger.codegen._
+import com.wordnik.swagger.codegen.languages.JavaClientCodegen
+import com.wordnik.swagger.models.Swagger
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class TemplateCacheTest extends FlatSpec with Matchers {
+  behavior of "DefaultGenerator template cache"
+
+  def generator(templateDir: String) = {
+    val config = new JavaClientCodegen()
+    config.setTemplateDir(templateDir)
+    val input = new ClientOptInput().opts(new ClientOpts()).swagger(new Swagger())
+    input.setConfig(config)
+    val generator = new DefaultGenerator()
+    generator.opts(input)
+    generator
+  }
+
+  it should "compile a classpath template only once" in {
+    val first = generator("Java").compileTemplate("model.mustache")
+    val second = generator("Java").compileTemplate("model.mustache")
+
+    first should be theSameInstanceAs (second)
+  }
+
+  it should "recompile a file system template when it changes" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-templates-" + System.nanoTime())
+    val template = new File(dir, "model.mustache")
+    FileUtils.writeStringToFile(template, "hello {{name}}")
+
+    val first = generator(dir.getAbsolutePath).compileTemplate("model.mustache")
+    first.execute(Map("name" -> "world").asJava) should be ("hello world")
+    generator(dir.getAbsolutePath).compileTemplate("model.mustache") should be theSameInstanceAs (first)
+
+    FileUtils.writeStringToFile(template, "goodbye {{name}}")
+    template.setLastModified(template.lastModified() + 2000)
+
+    val second = generator(dir.getAbsolutePath).compileTemplate("model.mustache")
+    second.execute(Map("name" -> "world").asJava) should be ("goodbye world")
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "recompile a template when one of its partials changes" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-templates-" + System.nanoTime())
+    val partial = new File(dir, "header.mustache")
+    FileUtils.writeStringToFile(new File(dir, "api.mustache"), "{{>header}} {{name}}")
+    FileUtils.writeStringToFile(partial, "hello")
+
+    val first = generator(dir.getAbsolutePath).compileTemplate("api.mustache")
+    first.execute(Map("name" -> "world").asJava) should be ("hello world")
+
+    FileUtils.writeStringToFile(partial, "goodbye")
+    partial.setLastModified(partial.lastModified() + 2000)
+
+    val second = generator(dir.getAbsolutePath).compileTemplate("api.mustache")
+    second.execute(Map("name" -> "world").asJava) should be ("goodbye world")
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "check file system templates once per run" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-templates-" + System.nanoTime())
+    val template = new File(dir, "model.mustache")
+    FileUtils.writeStringToFile(template, "hello {{name}}")
+
+    val running = generator(dir.getAbsolutePath)
+    val first = running.compileTemplate("model.mustache")
+    FileUtils.writeStringToFile(template, "goodbye {{name}}")
+    template.setLastModified(template.lastModified() + 2000)
+
+    running.compileTemplate("model.mustache") should be theSameInstanceAs (first)
+    generator(dir.getAbsolutePath).compileTemplate("model.mustache").execute(Map("name" -> "world").asJava) should be ("goodbye world")
+    FileUtils.deleteDirectory(dir)
+  }
+}
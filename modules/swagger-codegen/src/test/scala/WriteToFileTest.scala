@@ -0,0 +1,66 @@
+import com.wordnik.swagger.codegen._
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class WriteToFileTest extends FlatSpec with Matchers {
+  behavior of "DefaultGenerator.writeToFile"
+
+  it should "leave a file with identical content untouched" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-write-" + System.nanoTime())
+    val file = new File(dir, "Pet.java")
+    val generator = new DefaultGenerator()
+
+    generator.writeToFile(file.getPath, "class Pet {}")
+    file.setLastModified(1000)
+    generator.writeToFile(file.getPath, "class Pet {}")
+    file.lastModified() should be (1000)
+
+    generator.writeToFile(file.getPath, "class Pet { }")
+    FileUtils.readFileToString(file) should be ("class Pet { }")
+    generator.getFilesWritten should be (2)
+    generator.getFilesSkipped should be (1)
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "replace a file through a temp file" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-write-" + System.nanoTime())
+    val file = new File(dir, "Pet.java")
+    val generator = new DefaultGenerator()
+    generator.setAtomicWrites(true)
+
+    generator.writeToFile(file.getPath, "class Pet {}")
+    generator.writeToFile(file.getPath, "class Pet { }")
+
+    FileUtils.readFileToString(file) should be ("class Pet { }")
+    dir.list().toList should be (List("Pet.java"))
+    FileUtils.deleteDirectory(dir)
+  }
+
+  it should "stream a template into a file and skip identical output" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-write-" + System.nanoTime())
+    val file = new File(dir, "Pet.java")
+    val tmpl = com.samskivert.mustache.Mustache.compiler().compile("class {{name}} {}")
+    val generator = new DefaultGenerator()
+
+    generator.writeToFile(file.getPath, tmpl, Map("name" -> "Pet").asJava)
+    FileUtils.readFileToString(file) should be ("class Pet {}")
+    generator.writeToFile(file.getPath, tmpl, Map("name" -> "Pet").asJava)
+    generator.writeToFile(file.getPath, tmpl, Map("name" -> "Pets").asJava)
+
+    FileUtils.readFileToString(file) should be ("class Pets {}")
+    dir.list().toList should be (List("Pet.java"))
+    generator.getFilesWritten should be (2)
+    generator.getFilesSkipped should be (1)
+    FileUtils.deleteDirectory(dir)
+  }
+}
@@ -16,7 +16,13 @@
 
 package com.wordnik.swagger.generator;
 
+import com.wordnik.swagger.codegen.SpecCache;
 import com.wordnik.swagger.models.*;
+import com.wordnik.swagger.online.BundleCache;
+import com.wordnik.swagger.online.BundleRegistry;
+import com.wordnik.swagger.online.JobQueue;
+
+import java.io.File;
 
 import javax.servlet.http.HttpServlet;
 import javax.servlet.ServletContext;
@@ -41,5 +47,34 @@ public class Bootstrap extends HttpServlet {
     bc.setLicenseUrl("http://www.apache.org/licenses/LICENSE-2.0.html");
     bc.setResourcePackage("com.wordnik.swagger.generator.resource");
     bc.setScan(true);
+
+    JobQueue.configure(
+      intParam(config, "workers", JobQueue.DEFAULT_WORKERS),
+      intParam(config, "queueDepth", JobQueue.DEFAULT_QUEUE_DEPTH),
+      intParam(config, "jobsPerLanguage", JobQueue.DEFAULT_JOBS_PER_LANGUAGE),
+      intParam(config, "jobRetentionMinutes", (int) (JobQueue.DEFAULT_RETENTION / 60000)) * 60000L);
+
+    String cacheDir = System.getProperty("generator.cacheDir", config.getInitParameter("cacheDir"));
+    if(cacheDir == null || cacheDir.trim().length() == 0)
+      cacheDir = new File(System.getProperty("java.io.tmpdir"), "codegen-bundles").getAbsolutePath();
+    BundleCache.configure(new File(cacheDir.trim()),
+      intParam(config, "cacheMaxMegabytes", (int) (BundleCache.DEFAULT_MAX_SIZE / (1024 * 1024))) * 1024L * 1024L);
+
+    BundleRegistry.configure(
+      intParam(config, "bundleTtlMinutes", (int) (BundleRegistry.DEFAULT_TTL / 60000)) * 60000L,
+      intParam(config, "maxBundles", BundleRegistry.DEFAULT_MAX_ENTRIES));
+
+    SpecCache.configure(intParam(config, "specCacheEntries", SpecCache.DEFAULT_MAX_ENTRIES));
+  }
+
+  /**
+   * Reads a servlet init-param, which can be overridden with a
+   * <code>generator.&lt;name&gt;</code> system property
+   */
+  static int intParam(ServletConfig config, String name, int defaultValue) {
+    String value = System.getProperty("generator." + name, config.getInitParameter(name));
+    if(value == null || value.trim().length() == 0)
+      return defaultValue;
+    return Integer.parseInt(value.trim());
   }
 }
@@ -0,0 +1,74 @@
+package com.wordnik.swagger.generator.model;
+
+public class JobStatus {
+  private String id;
+  private String language;
+  private String status;
+  private String message;
+  private String link;
+  private long submitted;
+  private Long started;
+  private Long finished;
+
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getLanguage() {
+    return language;
+  }
+  public void setLanguage(String language) {
+    this.language = language;
+  }
+
+  /**
+   * queued, running, done or failed
+   */
+  public String getStatus() {
+    return status;
+  }
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  /**
+   * Download link of the bundle, once the job is done
+   */
+  public String getLink() {
+    return link;
+  }
+  public void setLink(String link) {
+    this.link = link;
+  }
+
+  public long getSubmitted() {
+    return submitted;
+  }
+  public void setSubmitted(long submitted) {
+    this.submitted = submitted;
+  }
+
+  public Long getStarted() {
+    return started;
+  }
+  public void setStarted(Long started) {
+    this.started = started;
+  }
+
+  public Long getFinished() {
+    return finished;
+  }
+  public void setFinished(Long finished) {
+    this.finished = finished;
+  }
+}
@@ -0,0 +1,272 @@
+package com.wordnik.swagger.online;
+
+import com.wordnik.swagger.codegen.DefaultGenerator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.apache.commons.io.FileUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps generated bundles on disk, keyed by a hash of the spec, the language
+ * and the options they were generated from, so identical requests don't run
+ * the generator again.  The store is bounded in bytes and evicts the least
+ * recently used bundle first.  Access times are kept as file mtimes so the
+ * LRU order survives a restart.
+ */
+public class BundleCache {
+  static Logger LOGGER = LoggerFactory.getLogger(BundleCache.class);
+
+  public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+
+  // bundles are stored as <key>.zip, and copied in through <key><random>.tmp
+  static final Pattern BUNDLE = Pattern.compile("[0-9a-f]{64}\\.zip");
+  static final Pattern TEMP_FILE = Pattern.compile("[0-9a-f]{64}[0-9]+\\.tmp");
+
+  private static volatile BundleCache instance;
+  private static volatile String build;
+
+  protected final File directory;
+  protected final long maxSize;
+  protected final LinkedHashMap<String, File> entries = new LinkedHashMap<String, File>(16, 0.75f, true);
+  protected long size = 0;
+  protected final AtomicLong hits = new AtomicLong();
+  protected final AtomicLong misses = new AtomicLong();
+
+  public BundleCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    directory.mkdirs();
+    File[] files = directory.listFiles();
+    if(files != null) {
+      Arrays.sort(files, new Comparator<File>() {
+        public int compare(File a, File b) {
+          long diff = a.lastModified() - b.lastModified();
+          return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+      });
+      // only files named like the cache's own are touched, the directory may be shared
+      for(File file : files) {
+        if(BUNDLE.matcher(file.getName()).matches()) {
+          entries.put(file.getName().substring(0, file.getName().length() - 4), file);
+          size += file.length();
+        }
+        else if(TEMP_FILE.matcher(file.getName()).matches())
+          file.delete();
+      }
+    }
+    evict();
+  }
+
+  public static BundleCache getInstance() {
+    if(instance == null) {
+      synchronized(BundleCache.class) {
+        if(instance == null)
+          instance = new BundleCache(new File(System.getProperty("java.io.tmpdir"), "codegen-bundles"), DEFAULT_MAX_SIZE);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Replaces the shared cache, a max size of 0 disables caching
+   */
+  public static synchronized void configure(File directory, long maxSize) {
+    instance = new BundleCache(directory, maxSize);
+    LOGGER.info("caching up to " + (maxSize / (1024 * 1024)) + "MB of bundles in " + directory);
+  }
+
+  /**
+   * Returns the cached bundle or null
+   */
+  public File get(String key) {
+    File file;
+    synchronized(this) {
+      file = entries.get(key);
+      if(file != null && !file.exists()) {
+        entries.remove(key);
+        file = null;
+      }
+    }
+    if(file == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    file.setLastModified(System.currentTimeMillis());
+    hits.incrementAndGet();
+    return file;
+  }
+
+  /**
+   * Moves a freshly generated bundle into the cache and returns its new
+   * location.  If it is larger than the whole cache it is left where it is
+   */
+  public File put(String key, File bundle) throws IOException {
+    if(bundle.length() > maxSize)
+      return bundle;
+    File target = new File(directory, key + ".zip");
+    File tmp = File.createTempFile(key, ".tmp", directory);
+    FileUtils.copyFile(bundle, tmp);
+    synchronized(this) {
+      File previous = entries.remove(key);
+      if(previous != null)
+        size -= previous.length();
+      if(!tmp.renameTo(target)) {
+        tmp.delete();
+        return bundle;
+      }
+      entries.put(key, target);
+      size += target.length();
+      evict();
+    }
+    bundle.delete();
+    return target;
+  }
+
+  /**
+   * True for files stored by this cache, which must not be deleted by others
+   */
+  public boolean contains(File file) {
+    return directory.getAbsoluteFile().equals(file.getAbsoluteFile().getParentFile());
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  protected synchronized void evict() {
+    Iterator<Map.Entry<String, File>> it = entries.entrySet().iterator();
+    while(size > maxSize && it.hasNext()) {
+      File file = it.next().getValue();
+      size -= file.length();
+      file.delete();
+      it.remove();
+    }
+  }
+
+  /**
+   * SHA-256 over a canonical form of the spec, with object fields sorted by
+   * name so formatting and field order don't matter, plus the language, the
+   * options and the codegen build
+   */
+  public static String key(JsonNode spec, String language, Map<String, String> options) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      update(digest, build());
+      update(digest, language);
+      if(options != null) {
+        for(Map.Entry<String, String> option : new TreeMap<String, String>(options).entrySet()) {
+          update(digest, option.getKey());
+          update(digest, String.valueOf(option.getValue()));
+        }
+      }
+      update(digest, "\u0000spec");
+      canonicalize(spec, digest);
+      return hex(digest.digest());
+    }
+    catch (Exception e) {
+      throw new RuntimeException("unable to hash the spec", e);
+    }
+  }
+
+  /**
+   * Identifies the codegen classes and templates, since a redeploy may change
+   * the templates but not the version.  Hashes the codegen jar, or the names,
+   * sizes and mtimes of an exploded build.  If neither can be read, bundles
+   * of earlier runs are not reused
+   */
+  static String build() {
+    if(build == null) {
+      synchronized(BundleCache.class) {
+        if(build == null) {
+          try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, String.valueOf(DefaultGenerator.class.getPackage().getImplementationVersion()));
+            fingerprint(new File(DefaultGenerator.class.getProtectionDomain().getCodeSource().getLocation().toURI()), "", digest);
+            build = hex(digest.digest());
+          }
+          catch (Exception e) {
+            LOGGER.warn("unable to fingerprint the codegen build, cached bundles are not reused after a restart: " + e.getMessage());
+            build = "started " + System.currentTimeMillis();
+          }
+        }
+      }
+    }
+    return build;
+  }
+
+  static void fingerprint(File file, String name, MessageDigest digest) throws IOException {
+    if(file.isDirectory()) {
+      String[] children = file.list();
+      if(children == null)
+        throw new IOException("unable to list " + file);
+      Arrays.sort(children);
+      for(String child : children)
+        fingerprint(new File(file, child), name + "/" + child, digest);
+    }
+    else if(name.length() == 0)
+      digest.update(FileUtils.readFileToByteArray(file));
+    else {
+      update(digest, name);
+      update(digest, file.length() + ":" + file.lastModified());
+    }
+  }
+
+  static String hex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder();
+    for(byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+      sb.append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  static void canonicalize(JsonNode node, MessageDigest digest) throws IOException {
+    if(node.isObject()) {
+      update(digest, "{");
+      List<String> names = new ArrayList<String>();
+      for(Iterator<String> it = node.fieldNames(); it.hasNext(); )
+        names.add(it.next());
+      Collections.sort(names);
+      for(String name : names) {
+        update(digest, name);
+        canonicalize(node.get(name), digest);
+      }
+      update(digest, "}");
+    }
+    else if(node.isArray()) {
+      update(digest, "[");
+      for(JsonNode element : node)
+        canonicalize(element, digest);
+      update(digest, "]");
+    }
+    else
+      update(digest, node.toString());
+  }
+
+  static void update(MessageDigest digest, String value) throws IOException {
+    digest.update(value.getBytes("UTF-8"));
+    digest.update((byte) 0);
+  }
+}
@@ -0,0 +1,145 @@
+package com.wordnik.swagger.online;
+
+import com.wordnik.swagger.generator.model.Generated;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bundles that can be downloaded, by id.  Entries expire after a time to
+ * live and the oldest are dropped once there are more than the maximum.
+ * Bundles are deleted with their entry unless they belong to the BundleCache,
+ * which manages its own files.
+ */
+public class BundleRegistry {
+  static Logger LOGGER = LoggerFactory.getLogger(BundleRegistry.class);
+
+  public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(1);
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private static volatile BundleRegistry instance;
+
+  static class Entry {
+    final Generated generated;
+    final long created;
+    final boolean owned;
+
+    Entry(Generated generated, long created, boolean owned) {
+      this.generated = generated;
+      this.created = created;
+      this.owned = owned;
+    }
+  }
+
+  protected final long ttl;
+  protected final int maxEntries;
+  // insertion order is creation order, the oldest entry comes first
+  protected final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+  public BundleRegistry(long ttl, int maxEntries) {
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+  }
+
+  public static BundleRegistry getInstance() {
+    if(instance == null) {
+      synchronized(BundleRegistry.class) {
+        if(instance == null)
+          instance = new BundleRegistry(DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Replaces the shared registry, bundles of the previous one are released
+   */
+  public static synchronized void configure(long ttl, int maxEntries) {
+    BundleRegistry previous = instance;
+    instance = new BundleRegistry(ttl, maxEntries);
+    if(previous != null)
+      previous.clear();
+    LOGGER.info("keeping up to " + maxEntries + " bundles for " + (ttl / 60000) + " minutes");
+  }
+
+  /**
+   * Registers a bundle under a new random id and returns the id
+   */
+  public String register(File bundle, String friendlyName) {
+    String id = UUID.randomUUID().toString();
+    register(id, bundle, friendlyName);
+    return id;
+  }
+
+  public void register(String id, File bundle, String friendlyName) {
+    Generated generated = new Generated();
+    generated.setFilename(bundle.getAbsolutePath());
+    generated.setFriendlyName(friendlyName);
+    Entry entry = new Entry(generated, System.currentTimeMillis(), !BundleCache.getInstance().contains(bundle));
+    List<Entry> evicted;
+    synchronized(this) {
+      Entry previous = entries.remove(id);
+      entries.put(id, entry);
+      evicted = evict();
+      if(previous != null && !previous.generated.getFilename().equals(generated.getFilename()))
+        evicted.add(previous);
+    }
+    release(evicted);
+  }
+
+  /**
+   * Returns the bundle or null when it is unknown or expired
+   */
+  public Generated get(String id) {
+    Entry entry;
+    List<Entry> evicted;
+    synchronized(this) {
+      evicted = evict();
+      entry = entries.get(id);
+    }
+    release(evicted);
+    return entry == null ? null : entry.generated;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    List<Entry> evicted;
+    synchronized(this) {
+      evicted = new ArrayList<Entry>(entries.values());
+      entries.clear();
+    }
+    release(evicted);
+  }
+
+  /**
+   * Removes expired entries and the oldest ones over the maximum, the files
+   * are deleted by the caller outside the lock
+   */
+  protected synchronized List<Entry> evict() {
+    List<Entry> evicted = new ArrayList<Entry>();
+    long expired = System.currentTimeMillis() - ttl;
+    Iterator<Entry> it = entries.values().iterator();
+    while(it.hasNext()) {
+      Entry entry = it.next();
+      if(entry.created >= expired && entries.size() <= maxEntries)
+        break;
+      evicted.add(entry);
+      it.remove();
+    }
+    return evicted;
+  }
+
+  protected void release(List<Entry> evicted) {
+    for(Entry entry : evicted) {
+      if(entry.owned && !new File(entry.generated.getFilename()).delete())
+        LOGGER.debug("bundle " + entry.generated.getFilename() + " was already removed");
+    }
+  }
+}
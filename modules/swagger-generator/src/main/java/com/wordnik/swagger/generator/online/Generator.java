@@ -7,16 +7,20 @@ import com.wordnik.swagger.codegen.*;
 import com.wordnik.swagger.models.Swagger;
 import com.wordnik.swagger.generator.model.*;
 import com.wordnik.swagger.util.Json;
-import com.wordnik.swagger.generator.util.ZipUtil;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import org.apache.commons.io.FileUtils;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Map;
 
 public class Generator {
   static Logger LOGGER = LoggerFactory.getLogger(Generator.class);
@@ -27,7 +31,17 @@ public class Generator {
     if(opts == null) {
       throw new BadRequestException(400, "No options were supplied");
     }
-    JsonNode node = opts.getSpec();
+    JsonNode node = specOf(opts);
+    String cacheKey = null;
+    if(node != null) {
+      cacheKey = BundleCache.key(node, language + "-client", opts.getOptions());
+      File cached = BundleCache.getInstance().get(cacheKey);
+      if(cached != null) {
+        LOGGER.debug("returning cached " + language + " client " + cached);
+        return cached.getAbsolutePath();
+      }
+    }
+    long parseStarted = System.nanoTime();
     if(node == null) {
       if(opts.getSwaggerUrl() != null) {
         swagger = new SwaggerParser().read(opts.getSwaggerUrl());
@@ -36,16 +50,27 @@ public class Generator {
         throw new BadRequestException(400, "No swagger specification was supplied");
     }
     else {
-      swagger = new SwaggerParser().read(node);
+      // specs from a url are resolved like SwaggerParser.read(url) does
+      swagger = SpecCache.getInstance().toSwagger(node, null, opts.getSpec() == null);
     }
+    GeneratorMetrics.getInstance().record(GeneratorMetrics.PARSE, language, System.nanoTime() - parseStarted, -1);
     if(swagger == null) {
       throw new BadRequestException(400, "The swagger specification supplied was not valid");
     }
 
     ClientOptInput clientOptInput = new ClientOptInput();
     ClientOpts clientOpts = new ClientOpts();
-    String outputFolder = getTmpFolder().getAbsolutePath() + File.separator + language + "-client";
-    String outputFilename = outputFolder + "-bundle.zip";
+    File bundle;
+    try {
+      bundle = File.createTempFile("codegen-" + language + "-client-", ".zip");
+    }
+    catch (IOException e) {
+      throw new BadRequestException(500, "Unable to create a bundle: " + e.getMessage());
+    }
+    // files are rendered into the zip, the output folder is never created
+    // unless the config writes files itself
+    String outputFolder = bundle.getAbsolutePath().substring(0, bundle.getAbsolutePath().length() - 4);
+    String outputFilename = bundle.getAbsolutePath();
 
     clientOptInput
       .opts(clientOpts)
@@ -53,6 +78,7 @@ public class Generator {
 
     CodegenConfig codegenConfig = Codegen.getConfig(language);
     if(codegenConfig == null) {
+      bundle.delete();
       throw new BadRequestException(400, "Unsupported target " + language + " supplied");
     }
 
@@ -62,21 +88,34 @@ public class Generator {
 
     clientOptInput.setConfig(codegenConfig);
 
+    ZipOutputSink sink = null;
     try{
-      List<File> files = new Codegen().opts(clientOptInput).generate();
+      sink = new ZipOutputSink(outputFolder, language + "-client", new BufferedOutputStream(new FileOutputStream(bundle)));
+      Codegen codegen = new Codegen();
+      codegen.opts(clientOptInput);
+      codegen.setOutputSink(sink);
+      codegen.setListener(GeneratorMetrics.getInstance());
+      List<File> files = codegen.generate();
+      // a generation that failed half way must not end up in the cache
+      if(codegen.getFailure() != null)
+        throw codegen.getFailure();
+      closeBundle(sink, bundle, language);
       if(files.size() > 0) {
-        List<File> filesToAdd = new ArrayList<File>();
-        filesToAdd.add(new File(outputFolder));
-        ZipUtil zip = new ZipUtil();
-        zip.compressFiles(filesToAdd, outputFilename);
+        if(cacheKey != null)
+          outputFilename = BundleCache.getInstance().put(cacheKey, bundle).getAbsolutePath();
       }
       else {
         throw new BadRequestException(400, "A target generation was attempted, but no files were created!");
       }
     }
     catch (Exception e) {
+      closeQuietly(sink);
+      bundle.delete();
       throw new BadRequestException(500, "Unable to build target: " + e.getMessage());
     }
+    finally {
+      FileUtils.deleteQuietly(new File(outputFolder));
+    }
     return outputFilename;
   }
 
@@ -89,7 +128,17 @@ public class Generator {
     if(opts == null) {
       throw new BadRequestException(400, "No options were supplied");
     }
-    JsonNode node = opts.getSpec();
+    JsonNode node = specOf(opts);
+    String cacheKey = null;
+    if(node != null) {
+      cacheKey = BundleCache.key(node, language + "-server", opts.getOptions());
+      File cached = BundleCache.getInstance().get(cacheKey);
+      if(cached != null) {
+        LOGGER.debug("returning cached " + language + " server " + cached);
+        return cached.getAbsolutePath();
+      }
+    }
+    long parseStarted = System.nanoTime();
     if(node == null) {
       if(opts.getSwaggerUrl() != null) {
         swagger = new SwaggerParser().read(opts.getSwaggerUrl());
@@ -98,16 +147,27 @@ public class Generator {
         throw new BadRequestException(400, "No swagger specification was supplied");
     }
     else {
-      swagger = new SwaggerParser().read(node);
+      // specs from a url are resolved like SwaggerParser.read(url) does
+      swagger = SpecCache.getInstance().toSwagger(node, null, opts.getSpec() == null);
     }
+    GeneratorMetrics.getInstance().record(GeneratorMetrics.PARSE, language, System.nanoTime() - parseStarted, -1);
     if(swagger == null) {
       throw new BadRequestException(400, "The swagger specification supplied was not valid");
     }
 
     ClientOptInput clientOptInput = new ClientOptInput();
     ClientOpts clientOpts = new ClientOpts();
-    String outputFolder = getTmpFolder().getAbsolutePath() + File.separator + language + "-server";
-    String outputFilename = outputFolder + "-bundle.zip";
+    File bundle;
+    try {
+      bundle = File.createTempFile("codegen-" + language + "-server-", ".zip");
+    }
+    catch (IOException e) {
+      throw new BadRequestException(500, "Unable to create a bundle: " + e.getMessage());
+    }
+    // files are rendered into the zip, the output folder is never created
+    // unless the config writes files itself
+    String outputFolder = bundle.getAbsolutePath().substring(0, bundle.getAbsolutePath().length() - 4);
+    String outputFilename = bundle.getAbsolutePath();
 
     clientOptInput
       .opts(clientOpts)
@@ -115,6 +175,7 @@ public class Generator {
 
     CodegenConfig codegenConfig = Codegen.getConfig(language);
     if(codegenConfig == null) {
+      bundle.delete();
       throw new BadRequestException(400, "Unsupported target " + language + " supplied");
     }
 
@@ -124,21 +185,119 @@ public class Generator {
 
     clientOptInput.setConfig(codegenConfig);
 
+    ZipOutputSink sink = null;
     try{
-      List<File> files = new Codegen().opts(clientOptInput).generate();
+      sink = new ZipOutputSink(outputFolder, language + "-server", new BufferedOutputStream(new FileOutputStream(bundle)));
+      Codegen codegen = new Codegen();
+      codegen.opts(clientOptInput);
+      codegen.setOutputSink(sink);
+      codegen.setListener(GeneratorMetrics.getInstance());
+      List<File> files = codegen.generate();
+      // a generation that failed half way must not end up in the cache
+      if(codegen.getFailure() != null)
+        throw codegen.getFailure();
+      closeBundle(sink, bundle, language);
       if(files.size() > 0) {
-        List<File> filesToAdd = new ArrayList<File>();
-        filesToAdd.add(new File(outputFolder));
-        ZipUtil zip = new ZipUtil();
-        zip.compressFiles(filesToAdd, outputFilename);
+        if(cacheKey != null)
+          outputFilename = BundleCache.getInstance().put(cacheKey, bundle).getAbsolutePath();
       }
       else {
         throw new BadRequestException(400, "A target generation was attempted, but no files were created!");
       }
     }
     catch (Exception e) {
+      closeQuietly(sink);
+      bundle.delete();
       throw new BadRequestException(500, "Unable to build target: " + e.getMessage());
     }
+    finally {
+      FileUtils.deleteQuietly(new File(outputFolder));
+    }
+    return outputFilename;
+  }
+
+  /**
+   * Generates clients for several languages from a single parse of the spec
+   * into one bundle, with a &lt;language&gt;-client folder per language
+   */
+  public static String generateClients(List<String> languages, GeneratorInput opts) throws ApiException {
+    LOGGER.debug("generate clients for " + languages);
+    if(opts == null) {
+      throw new BadRequestException(400, "No options were supplied");
+    }
+    if(languages == null || languages.isEmpty()) {
+      throw new BadRequestException(400, "No languages were supplied");
+    }
+    for(String language : languages) {
+      try {
+        Codegen.getConfig(language);
+      }
+      catch (RuntimeException e) {
+        throw new BadRequestException(400, "Unsupported target " + language + " supplied");
+      }
+    }
+    JsonNode node = specOf(opts);
+    if(node == null) {
+      if(opts.getSwaggerUrl() == null)
+        throw new BadRequestException(400, "No swagger specification was supplied");
+      throw new BadRequestException(400, "The swagger specification supplied was not valid");
+    }
+    StringBuilder names = new StringBuilder();
+    for(String language : languages)
+      names.append(language).append(',');
+    String cacheKey = BundleCache.key(node, names + "clients", opts.getOptions());
+    File cached = BundleCache.getInstance().get(cacheKey);
+    if(cached != null) {
+      LOGGER.debug("returning cached clients " + cached);
+      return cached.getAbsolutePath();
+    }
+
+    File bundle;
+    try {
+      bundle = File.createTempFile("codegen-clients-", ".zip");
+    }
+    catch (IOException e) {
+      throw new BadRequestException(500, "Unable to create a bundle: " + e.getMessage());
+    }
+    String outputFolder = bundle.getAbsolutePath().substring(0, bundle.getAbsolutePath().length() - 4);
+    String outputFilename = bundle.getAbsolutePath();
+
+    ZipOutputSink sink = null;
+    try{
+      sink = new ZipOutputSink(outputFolder, null, new BufferedOutputStream(new FileOutputStream(bundle)));
+      BatchGenerator batch = new BatchGenerator(node, opts.getSpec() == null) {
+        protected String folderName(String language) {
+          return language + "-client";
+        }
+
+        protected DefaultGenerator newGenerator(String language) {
+          DefaultGenerator generator = super.newGenerator(language);
+          generator.setListener(GeneratorMetrics.getInstance());
+          return generator;
+        }
+      };
+      batch.setOutputFolder(outputFolder);
+      batch.setOutputSink(sink);
+      Map<String, List<File>> files = batch.generate(languages);
+      if(!batch.getFailures().isEmpty()) {
+        String failed = batch.getFailures().keySet().iterator().next();
+        throw new RuntimeException(failed + ": " + batch.getFailures().get(failed).getMessage());
+      }
+      closeBundle(sink, bundle, names.toString());
+      for(Map.Entry<String, List<File>> entry : files.entrySet()) {
+        if(entry.getValue().isEmpty())
+          throw new BadRequestException(400, "A " + entry.getKey() + " generation was attempted, but no files were created!");
+      }
+      outputFilename = BundleCache.getInstance().put(cacheKey, bundle).getAbsolutePath();
+    }
+    catch (Exception e) {
+      closeQuietly(sink);
+      bundle.delete();
+      throw new BadRequestException(500, "Unable to build targets: " + e.getMessage());
+    }
+    finally {
+      FileUtils.deleteQuietly(new File(outputFolder));
+    }
     return outputFilename;
   }
 
@@ -150,17 +309,44 @@ public class Generator {
     return null;
   }
 
-  protected static File getTmpFolder() {
+  /**
+   * The posted spec, or the tree of the spec at swaggerUrl from the SpecCache.
+   * Null if there is neither or the url isn't a Swagger 2.0 spec, which is
+   * then left to the SwaggerParser
+   */
+  static JsonNode specOf(GeneratorInput opts) {
+    if(opts.getSpec() != null || opts.getSwaggerUrl() == null)
+      return opts.getSpec();
+    long started = System.nanoTime();
     try {
-      File outputFolder = File.createTempFile("codegen-", "-tmp");
-      outputFolder.delete();
-      outputFolder.mkdir();
-      outputFolder.deleteOnExit();
-      return outputFolder;
+      JsonNode node = SpecCache.getInstance().readTree(opts.getSwaggerUrl(), null);
+      GeneratorMetrics.getInstance().record(GeneratorMetrics.PARSE, "swaggerUrl", System.nanoTime() - started, -1);
+      return node != null && node.get("swagger") != null ? node : null;
     }
     catch (Exception e) {
-      e.printStackTrace();
+      LOGGER.debug("unable to read " + opts.getSwaggerUrl() + ": " + e.getMessage());
       return null;
     }
   }
+
+  /**
+   * Finishes the zip and records the time it took and the bundle size
+   */
+  static void closeBundle(OutputSink sink, File bundle, String name) throws IOException {
+    long started = System.nanoTime();
+    sink.close();
+    GeneratorMetrics.getInstance().record(GeneratorMetrics.ZIP, name, System.nanoTime() - started, -1);
+    GeneratorMetrics.getInstance().recordBundle(bundle.length());
+  }
+
+  static void closeQuietly(OutputSink sink) {
+    try {
+      if(sink != null)
+        sink.close();
+    }
+    catch (IOException e) {
+      // already failed
+    }
+  }
+
 }
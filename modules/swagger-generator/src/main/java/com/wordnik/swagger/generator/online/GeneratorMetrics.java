@@ -0,0 +1,221 @@
+package com.wordnik.swagger.online;
+
+import com.wordnik.swagger.codegen.Codegen;
+import com.wordnik.swagger.codegen.CodegenConfig;
+import com.wordnik.swagger.codegen.GenerationListener;
+import com.wordnik.swagger.codegen.SpecCache;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counters of the generator service, rendered in the Prometheus
+ * text format by /gen/metrics.  Generation phases come from the generators'
+ * GenerationListener, the service adds the parse and zip phases, request
+ * latencies from the ApiOriginFilter and errors from the ExceptionWriter.
+ * Queue and cache gauges are read when the metrics are rendered.
+ */
+public class GeneratorMetrics implements GenerationListener {
+  public static final String PARSE = "parse";
+  public static final String ZIP = "zip";
+  public static final String UNKNOWN = "unknown";
+
+  static final double[] BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+  private static final GeneratorMetrics instance = new GeneratorMetrics();
+
+  static class Summary {
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong sum = new AtomicLong();
+
+    void observe(long value) {
+      count.incrementAndGet();
+      sum.addAndGet(value);
+    }
+  }
+
+  static class Histogram extends Summary {
+    final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length);
+
+    void observe(long nanos) {
+      super.observe(nanos);
+      double seconds = nanos / 1e9;
+      for(int i = 0; i < BUCKETS.length; i++) {
+        if(seconds <= BUCKETS[i])
+          buckets.incrementAndGet(i);
+      }
+    }
+  }
+
+  protected final ConcurrentMap<String, Summary> phases = new ConcurrentHashMap<String, Summary>();
+  protected final ConcurrentMap<String, AtomicLong> allocations = new ConcurrentHashMap<String, AtomicLong>();
+  protected final ConcurrentMap<String, Histogram> requests = new ConcurrentHashMap<String, Histogram>();
+  protected final ConcurrentMap<String, Histogram> jobs = new ConcurrentHashMap<String, Histogram>();
+  protected final ConcurrentMap<String, Summary> queueWaits = new ConcurrentHashMap<String, Summary>();
+  protected final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<String, AtomicLong>();
+  protected final Summary bundleBytes = new Summary();
+  private volatile Set<String> languages;
+
+  public static GeneratorMetrics getInstance() {
+    return instance;
+  }
+
+  public void record(String phase, String name, long nanos, long bytes) {
+    String labels = labels("phase", phase);
+    get(phases, labels, new Summary()).observe(nanos);
+    if(bytes > 0)
+      get(allocations, labels, new AtomicLong()).addAndGet(bytes);
+  }
+
+  public void recordRequest(String method, String endpoint, int status, long nanos) {
+    get(requests, labels("method", method, "endpoint", endpoint, "code", String.valueOf(status)), new Histogram()).observe(nanos);
+  }
+
+  /**
+   * A finished job, with the time it waited in the queue and the time it ran
+   */
+  public void recordJob(String language, String state, long waitNanos, long runNanos) {
+    language = label(language);
+    get(queueWaits, labels("language", language), new Summary()).observe(waitNanos);
+    get(jobs, labels("language", language, "state", state), new Histogram()).observe(runNanos);
+  }
+
+  /**
+   * Languages without a config are counted as unknown, so names taken from
+   * request paths can't add time series
+   */
+  protected String label(String language) {
+    Set<String> known = languages;
+    if(known == null) {
+      known = new HashSet<String>();
+      for(CodegenConfig config : Codegen.getExtensions())
+        known.add(config.getName());
+      // batch jobs are queued under this name
+      known.add("batch");
+      languages = known;
+    }
+    return known.contains(language) ? language : UNKNOWN;
+  }
+
+  public void recordBundle(long bytes) {
+    bundleBytes.observe(bytes);
+  }
+
+  public void recordError(int status, String type) {
+    get(errors, labels("code", String.valueOf(status), "type", type), new AtomicLong()).incrementAndGet();
+  }
+
+  public String render() {
+    StringBuilder sb = new StringBuilder();
+    header(sb, "codegen_phase_seconds", "summary", "time spent in each generation phase, summed over threads");
+    for(Map.Entry<String, Summary> phase : sorted(phases).entrySet())
+      summary(sb, "codegen_phase_seconds", phase.getKey(), phase.getValue(), 1e9);
+
+    header(sb, "codegen_phase_allocated_bytes_total", "counter", "bytes allocated in each generation phase");
+    for(Map.Entry<String, AtomicLong> allocated : sorted(allocations).entrySet())
+      sample(sb, "codegen_phase_allocated_bytes_total", allocated.getKey(), allocated.getValue().get());
+
+    header(sb, "codegen_request_duration_seconds", "histogram", "latency of http requests");
+    for(Map.Entry<String, Histogram> request : sorted(requests).entrySet())
+      histogram(sb, "codegen_request_duration_seconds", request.getKey(), request.getValue());
+
+    header(sb, "codegen_job_duration_seconds", "histogram", "time generation jobs ran, by language and outcome");
+    for(Map.Entry<String, Histogram> job : sorted(jobs).entrySet())
+      histogram(sb, "codegen_job_duration_seconds", job.getKey(), job.getValue());
+
+    header(sb, "codegen_queue_wait_seconds", "summary", "time generation jobs waited for a worker");
+    for(Map.Entry<String, Summary> wait : sorted(queueWaits).entrySet())
+      summary(sb, "codegen_queue_wait_seconds", wait.getKey(), wait.getValue(), 1e9);
+
+    header(sb, "codegen_errors_total", "counter", "error responses by status and exception");
+    for(Map.Entry<String, AtomicLong> error : sorted(errors).entrySet())
+      sample(sb, "codegen_errors_total", error.getKey(), error.getValue().get());
+
+    header(sb, "codegen_bundle_bytes", "summary", "size of generated bundles");
+    summary(sb, "codegen_bundle_bytes", "", bundleBytes, 1);
+
+    JobQueue queue = JobQueue.getInstance();
+    gauge(sb, "codegen_queue_depth", "jobs waiting for a worker", queue.getQueueDepth());
+    gauge(sb, "codegen_active_generations", "jobs being generated", queue.getActiveCount());
+
+    BundleCache cache = BundleCache.getInstance();
+    counter(sb, "codegen_bundle_cache_hits_total", "bundles served from the cache", cache.getHits());
+    counter(sb, "codegen_bundle_cache_misses_total", "bundles that had to be generated", cache.getMisses());
+    gauge(sb, "codegen_bundle_cache_bytes", "size of the cached bundles", cache.getSize());
+    gauge(sb, "codegen_bundle_cache_entries", "number of cached bundles", cache.getEntryCount());
+    gauge(sb, "codegen_bundles_registered", "bundles available for download", BundleRegistry.getInstance().size());
+
+    SpecCache specs = SpecCache.getInstance();
+    counter(sb, "codegen_spec_cache_hits_total", "specs served from the spec cache", specs.getHits());
+    counter(sb, "codegen_spec_cache_misses_total", "specs that had to be parsed", specs.getMisses());
+    return sb.toString();
+  }
+
+  static <T> T get(ConcurrentMap<String, T> map, String key, T created) {
+    T existing = map.putIfAbsent(key, created);
+    return existing == null ? created : existing;
+  }
+
+  static <T> Map<String, T> sorted(Map<String, T> map) {
+    return new TreeMap<String, T>(map);
+  }
+
+  static String labels(String... pairs) {
+    StringBuilder sb = new StringBuilder();
+    for(int i = 0; i + 1 < pairs.length; i += 2) {
+      if(sb.length() > 0)
+        sb.append(',');
+      String value = pairs[i + 1] == null ? "" : pairs[i + 1];
+      sb.append(pairs[i]).append("=\"")
+        .append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+        .append('"');
+    }
+    return sb.toString();
+  }
+
+  static void header(StringBuilder sb, String name, String type, String help) {
+    sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  static void sample(StringBuilder sb, String name, String labels, double value) {
+    sb.append(name);
+    if(labels.length() > 0)
+      sb.append('{').append(labels).append('}');
+    sb.append(' ');
+    if(value == Math.rint(value) && Math.abs(value) < 1e15)
+      sb.append((long) value);
+    else
+      sb.append(value);
+    sb.append('\n');
+  }
+
+  static void summary(StringBuilder sb, String name, String labels, Summary summary, double scale) {
+    sample(sb, name + "_count", labels, summary.count.get());
+    sample(sb, name + "_sum", labels, summary.sum.get() / scale);
+  }
+
+  static void histogram(StringBuilder sb, String name, String labels, Histogram histogram) {
+    String prefix = labels.length() > 0 ? labels + "," : "";
+    for(int i = 0; i < BUCKETS.length; i++)
+      sample(sb, name + "_bucket", prefix + "le=\"" + BUCKETS[i] + "\"", histogram.buckets.get(i));
+    sample(sb, name + "_bucket", prefix + "le=\"+Inf\"", histogram.count.get());
+    summary(sb, name, labels, histogram, 1e9);
+  }
+
+  static void gauge(StringBuilder sb, String name, String help, double value) {
+    header(sb, name, "gauge", help);
+    sample(sb, name, "", value);
+  }
+
+  static void counter(StringBuilder sb, String name, String help, double value) {
+    header(sb, name, "counter", help);
+    sample(sb, name, "", value);
+  }
+}
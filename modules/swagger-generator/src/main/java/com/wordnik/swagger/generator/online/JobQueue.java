@@ -0,0 +1,233 @@
+package com.wordnik.swagger.online;
+
+import com.wordnik.swagger.generator.exception.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs generation jobs on a bounded pool of workers instead of the request
+ * threads.  A job is rejected with a TooManyRequestsException when the queue
+ * is full or its language already has too many jobs queued or running, so
+ * load never turns into an unbounded number of waiting threads.
+ *
+ * Finished jobs are kept for a retention period so their status can still be
+ * looked up.  Their bundles are registered with the BundleRegistry under the
+ * job id.
+ */
+public class JobQueue {
+  static Logger LOGGER = LoggerFactory.getLogger(JobQueue.class);
+
+  public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+  public static final int DEFAULT_QUEUE_DEPTH = 20;
+  public static final int DEFAULT_JOBS_PER_LANGUAGE = 8;
+  public static final long DEFAULT_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+  private static volatile JobQueue instance;
+
+  public enum State {
+    QUEUED, RUNNING, DONE, FAILED
+  }
+
+  public static class Job {
+    private final String id = UUID.randomUUID().toString();
+    private final String language;
+    private final String friendlyName;
+    private final long submitted = System.currentTimeMillis();
+    private volatile long started;
+    private volatile long finished;
+    private volatile State state = State.QUEUED;
+    private volatile String filename;
+    private volatile Exception error;
+    private Future<?> future;
+
+    Job(String language, String friendlyName) {
+      this.language = language;
+      this.friendlyName = friendlyName;
+    }
+
+    public String getId() {
+      return id;
+    }
+    public String getLanguage() {
+      return language;
+    }
+    public String getFriendlyName() {
+      return friendlyName;
+    }
+    public State getState() {
+      return state;
+    }
+    public long getSubmitted() {
+      return submitted;
+    }
+    public long getStarted() {
+      return started;
+    }
+    public long getFinished() {
+      return finished;
+    }
+    /**
+     * The generated bundle, once the job is done
+     */
+    public String getFilename() {
+      return filename;
+    }
+    public Exception getError() {
+      return error;
+    }
+    public boolean isFinished() {
+      return state == State.DONE || state == State.FAILED;
+    }
+  }
+
+  protected final ThreadPoolExecutor executor;
+  protected final int jobsPerLanguage;
+  protected final long retention;
+  protected final Map<String, Semaphore> languageSlots = new ConcurrentHashMap<String, Semaphore>();
+  protected final Map<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+
+  public JobQueue(int workers, int queueDepth, int jobsPerLanguage, long retention) {
+    final AtomicInteger count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<Runnable>(Math.max(queueDepth, 1)),
+      new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "codegen-worker-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      },
+      new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+    this.jobsPerLanguage = jobsPerLanguage;
+    this.retention = retention;
+  }
+
+  public static JobQueue getInstance() {
+    if(instance == null) {
+      synchronized(JobQueue.class) {
+        if(instance == null)
+          instance = new JobQueue(DEFAULT_WORKERS, DEFAULT_QUEUE_DEPTH, DEFAULT_JOBS_PER_LANGUAGE, DEFAULT_RETENTION);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Replaces the shared queue.  Jobs of the previous queue are allowed to finish
+   */
+  public static synchronized void configure(int workers, int queueDepth, int jobsPerLanguage, long retention) {
+    JobQueue previous = instance;
+    instance = new JobQueue(workers, queueDepth, jobsPerLanguage, retention);
+    if(previous != null)
+      previous.shutdown();
+    LOGGER.info("generating with " + workers + " workers, a queue of " + queueDepth + " and at most " +
+      jobsPerLanguage + " jobs per language");
+  }
+
+  public Job submit(String language, String friendlyName, final Callable<String> task) throws TooManyRequestsException {
+    purge();
+    final Semaphore slots = slots(language);
+    if(!slots.tryAcquire())
+      throw new TooManyRequestsException("Too many " + language + " jobs are waiting, please try again later");
+
+    final Job job = new Job(language, friendlyName);
+    jobs.put(job.id, job);
+    try {
+      job.future = executor.submit(new Runnable() {
+        public void run() {
+          job.started = System.currentTimeMillis();
+          job.state = State.RUNNING;
+          try {
+            job.filename = task.call();
+            if(job.filename != null)
+              BundleRegistry.getInstance().register(job.id, new File(job.filename), job.friendlyName);
+            job.state = State.DONE;
+          }
+          catch (Exception e) {
+            job.error = e;
+            job.state = State.FAILED;
+          }
+          finally {
+            job.finished = System.currentTimeMillis();
+            slots.release();
+            GeneratorMetrics.getInstance().recordJob(job.language, job.state.name().toLowerCase(),
+              (job.started - job.submitted) * 1000000L, (job.finished - job.started) * 1000000L);
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      jobs.remove(job.id);
+      slots.release();
+      throw new TooManyRequestsException("The generator is busy, please try again later");
+    }
+    return job;
+  }
+
+  /**
+   * Waits for a job and returns its bundle, or rethrows what it failed with
+   */
+  public String await(Job job) throws ApiException {
+    try {
+      job.future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BadRequestException(500, "Interrupted while waiting for the generator");
+    }
+    catch (ExecutionException e) {
+      throw new BadRequestException(500, "Unable to build target: " + e.getCause().getMessage());
+    }
+    if(job.error instanceof ApiException)
+      throw (ApiException) job.error;
+    if(job.error != null)
+      throw new BadRequestException(500, "Unable to build target: " + job.error.getMessage());
+    return job.filename;
+  }
+
+  public Job get(String id) {
+    return jobs.get(id);
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  protected Semaphore slots(String language) {
+    Semaphore slots = languageSlots.get(language);
+    if(slots == null) {
+      synchronized(languageSlots) {
+        slots = languageSlots.get(language);
+        if(slots == null) {
+          slots = new Semaphore(jobsPerLanguage);
+          languageSlots.put(language, slots);
+        }
+      }
+    }
+    return slots;
+  }
+
+  protected void purge() {
+    long expired = System.currentTimeMillis() - retention;
+    for(Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+      Job job = it.next();
+      if(job.isFinished() && job.finished < expired)
+        it.remove();
+    }
+  }
+}
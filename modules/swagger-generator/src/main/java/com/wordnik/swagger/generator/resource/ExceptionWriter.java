@@ -5,7 +5,9 @@ import com.wordnik.swagger.generator.util.ValidationException;
 import com.wordnik.swagger.generator.exception.ApiException;
 import com.wordnik.swagger.generator.exception.BadRequestException;
 import com.wordnik.swagger.generator.exception.NotFoundException;
+import com.wordnik.swagger.generator.exception.TooManyRequestsException;
 import com.wordnik.swagger.generator.model.ApiResponse;
+import com.wordnik.swagger.online.GeneratorMetrics;
 
 import javax.ws.rs.ext.*;
 import javax.ws.rs.core.Response;
@@ -14,6 +16,12 @@ import javax.ws.rs.core.Response.Status;
 @Provider
 public class ExceptionWriter implements ExceptionMapper<Exception> {
   public Response toResponse(Exception exception) {
+    Response response = response(exception);
+    GeneratorMetrics.getInstance().recordError(response.getStatus(), exception.getClass().getSimpleName());
+    return response;
+  }
+
+  Response response(Exception exception) {
     if (exception instanceof javax.ws.rs.WebApplicationException) {
       javax.ws.rs.WebApplicationException e = (javax.ws.rs.WebApplicationException) exception;
       return Response
@@ -36,6 +44,12 @@ public class ExceptionWriter implements ExceptionMapper<Exception> {
           .status(Status.BAD_REQUEST)
           .entity(new ApiResponse(ApiResponse.ERROR, exception
               .getMessage())).build();
+    } else if (exception instanceof TooManyRequestsException) {
+      return Response
+          .status(TooManyRequestsException.CODE)
+          .header("Retry-After", "5")
+          .entity(new ApiResponse(ApiResponse.TOO_BUSY, exception
+              .getMessage())).build();
     } else if (exception instanceof ApiException) {
       return Response
           .status(Status.BAD_REQUEST)
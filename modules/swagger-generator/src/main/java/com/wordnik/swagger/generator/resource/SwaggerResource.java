@@ -4,11 +4,17 @@ import com.wordnik.swagger.codegen.*;
 import com.wordnik.swagger.generator.util.*;
 import com.wordnik.swagger.annotations.*;
 import com.wordnik.swagger.generator.model.*;
+import com.wordnik.swagger.generator.exception.ApiException;
 import com.wordnik.swagger.generator.exception.BadRequestException;
+import com.wordnik.swagger.generator.exception.NotFoundException;
+import com.wordnik.swagger.online.BundleRegistry;
 import com.wordnik.swagger.online.Generator;
+import com.wordnik.swagger.online.GeneratorMetrics;
+import com.wordnik.swagger.online.JobQueue;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
@@ -16,7 +22,7 @@ import javax.ws.rs.core.*;
 @Path("/gen")
 @Api(value = "/gen", description = "Resource for generating swagger components")
 public class SwaggerResource {
-  private static Map<String, Generated> fileMap = new HashMap<String, Generated>();
+  private static final String DOWNLOAD_LINK = "http://generator.swagger.io/api/gen/download/";
 
   static List<String> clients = new ArrayList<String>();
   static List<String> servers = new ArrayList<String>();
@@ -38,22 +44,32 @@ public class SwaggerResource {
   @ApiOperation(value = "Downloads a pre-generated file",
     response = String.class,
     tags = {@Tag(value = "clients"), @Tag(value = "servers")})
-  public Response downloadFile(@PathParam("fileId") String fileId) throws Exception {
-    Generated g = fileMap.get(fileId);
+  public Response downloadFile(@PathParam("fileId") String fileId, @HeaderParam("Range") String range) throws Exception {
+    Generated g = BundleRegistry.getInstance().get(fileId);
     System.out.println("looking for fileId " + fileId);
+    if(g == null || g.getFilename() == null || !new File(g.getFilename()).isFile())
+      return Response.status(404).build();
     System.out.println("got filename " + g.getFilename());
-    if(g.getFilename() != null) {
-      byte[] bytes = org.apache.commons.io.FileUtils.readFileToByteArray(new java.io.File(g.getFilename()));
 
-      return Response.ok(bytes, "application/zip")
-        .header("Content-Disposition","attachment; filename=\"" + g.getFriendlyName() + "-generated.zip\"")
-        .header("Accept-Range", "bytes")
-        .header("Content-Length", bytes.length)
+    File file = new File(g.getFilename());
+    long length = file.length();
+    long[] bytes = FileRangeOutput.parseRange(range, length);
+    if(bytes == null) {
+      return Response.status(416)
+        .header("Content-Range", "bytes */" + length)
+        .header("Accept-Ranges", "bytes")
         .build();
     }
-    else {
-      return Response.status(404).build();
-    }
+    long count = bytes[1] - bytes[0] + 1;
+    Response.ResponseBuilder builder = count == length ? Response.ok() : Response.status(206)
+      .header("Content-Range", "bytes " + bytes[0] + "-" + bytes[1] + "/" + length);
+    return builder
+      .entity(new FileRangeOutput(file, bytes[0], count))
+      .type("application/zip")
+      .header("Content-Disposition","attachment; filename=\"" + g.getFriendlyName() + "-generated.zip\"")
+      .header("Accept-Ranges", "bytes")
+      .header("Content-Length", count)
+      .build();
   }
 
   @POST
@@ -66,16 +82,43 @@ public class SwaggerResource {
     @ApiParam(value = "The target language for the client library", allowableValues = "android,java,php,objc,docs", required = true) @PathParam("language") String language,
     @ApiParam(value = "Configuration for building the client library", required = true) GeneratorInput opts) throws Exception {
 
-    String filename = Generator.generateClient(language, opts);
+    JobQueue queue = JobQueue.getInstance();
+    JobQueue.Job job = queue.submit(supported(clients, language), language + "-client", clientTask(language, opts));
+    String filename = queue.await(job);
 
     if(filename != null) {
-      String code = String.valueOf(System.currentTimeMillis());
-      Generated g = new Generated();
-      g.setFilename(filename);
-      g.setFriendlyName(language + "-client");
-      fileMap.put(code, g);
+      // the bundle is registered for download under the job id
+      String code = job.getId();
       System.out.println(code + ", " + filename);
-      String link = "http://generator.swagger.io/api/gen/download/" + code;
+      String link = DOWNLOAD_LINK + code;
+      return Response.ok().entity(new ResponseCode(code, link)).build();
+    }
+    else {
+      return Response.status(500).build();
+    }
+  }
+
+  @POST
+  @Path("/batch/clients")
+  @ApiOperation(
+    value = "Generates client libraries for several languages into one bundle, parsing the spec once",
+    response = ResponseCode.class,
+    tags = {@Tag(value = "clients", description = "client operations")})
+  public Response generateClients(
+    @ApiParam(value = "Comma separated target languages", required = true) @QueryParam("languages") String languages,
+    @ApiParam(value = "Configuration for building the client libraries", required = true) GeneratorInput opts) throws Exception {
+    if(languages == null || languages.trim().length() == 0)
+      throw new BadRequestException(400, "Languages are required");
+
+    JobQueue queue = JobQueue.getInstance();
+    JobQueue.Job job = queue.submit("batch", "clients", clientsTask(Arrays.asList(languages.trim().split("\\s*,\\s*")), opts));
+    String filename = queue.await(job);
+
+    if(filename != null) {
+      // the bundle is registered for download under the job id
+      String code = job.getId();
+      System.out.println(code + ", " + filename);
+      String link = DOWNLOAD_LINK + code;
       return Response.ok().entity(new ResponseCode(code, link)).build();
     }
     else {
@@ -83,6 +126,15 @@ public class SwaggerResource {
     }
   }
 
+  @GET
+  @Path("/metrics")
+  @Produces({"text/plain; version=0.0.4"})
+  @ApiOperation(value = "Gets generation timings, queue, cache and error metrics in the Prometheus text format",
+    response = String.class)
+  public Response metrics() {
+    return Response.ok().entity(GeneratorMetrics.getInstance().render()).build();
+  }
+
   @GET
   @Path("/clients")
   @ApiOperation(value = "Gets languages supported by the client generator",
@@ -118,21 +170,111 @@ public class SwaggerResource {
       throws Exception {
     if(framework == null)
       throw new BadRequestException(400, "Framework is required");
-    String filename = Generator.generateServer(framework, opts);
+    JobQueue queue = JobQueue.getInstance();
+    JobQueue.Job job = queue.submit(supported(servers, framework), framework + "-server", serverTask(framework, opts));
+    String filename = queue.await(job);
     System.out.println("generated name: " + filename);
 
     if(filename != null) {
-      String code = String.valueOf(System.currentTimeMillis());
-      Generated g = new Generated();
-      g.setFilename(filename);
-      g.setFriendlyName(framework + "-server");
-      fileMap.put(code, g);
+      // the bundle is registered for download under the job id
+      String code = job.getId();
       System.out.println(code + ", " + filename);
-      String link = "http://generator.swagger.io/api/gen/download/" + code;
+      String link = DOWNLOAD_LINK + code;
       return Response.ok().entity(new ResponseCode(code, link)).build();
     }
     else {
       return Response.status(500).build();
     }
   }
+
+  @POST
+  @Path("/jobs/clients/{language}")
+  @ApiOperation(
+    value = "Queues the generation of a client library and returns the job",
+    response = JobStatus.class,
+    tags = {@Tag(value = "jobs", description = "asynchronous generation")})
+  public Response submitClient(
+    @ApiParam(value = "The target language for the client library", required = true) @PathParam("language") String language,
+    @ApiParam(value = "Configuration for building the client library", required = true) GeneratorInput opts) throws Exception {
+    JobQueue.Job job = JobQueue.getInstance().submit(supported(clients, language), language + "-client", clientTask(language, opts));
+    return Response.status(Response.Status.ACCEPTED).entity(status(job)).build();
+  }
+
+  @POST
+  @Path("/jobs/servers/{framework}")
+  @ApiOperation(
+    value = "Queues the generation of a server library and returns the job",
+    response = JobStatus.class,
+    tags = {@Tag(value = "jobs", description = "asynchronous generation")})
+  public Response submitServer(
+    @ApiParam(value = "framework", required = true) @PathParam("framework") String framework,
+    @ApiParam(value = "parameters", required = true) GeneratorInput opts) throws Exception {
+    if(framework == null)
+      throw new BadRequestException(400, "Framework is required");
+    JobQueue.Job job = JobQueue.getInstance().submit(supported(servers, framework), framework + "-server", serverTask(framework, opts));
+    return Response.status(Response.Status.ACCEPTED).entity(status(job)).build();
+  }
+
+  @GET
+  @Path("/jobs/{jobId}")
+  @ApiOperation(value = "Gets the status of a generation job",
+    response = JobStatus.class,
+    tags = {@Tag(value = "jobs", description = "asynchronous generation")})
+  public Response jobStatus(@PathParam("jobId") String jobId) throws Exception {
+    JobQueue.Job job = JobQueue.getInstance().get(jobId);
+    if(job == null)
+      throw new NotFoundException(404, "Job " + jobId + " not found");
+    return Response.ok().entity(status(job)).build();
+  }
+
+  /**
+   * Rejects targets that aren't registered before they reach the queue,
+   * which keeps state per language
+   */
+  static String supported(List<String> targets, String target) throws BadRequestException {
+    if(!targets.contains(target))
+      throw new BadRequestException(400, "Unsupported target " + target + " supplied");
+    return target;
+  }
+
+  static Callable<String> clientTask(final String language, final GeneratorInput opts) {
+    return new Callable<String>() {
+      public String call() throws ApiException {
+        return Generator.generateClient(language, opts);
+      }
+    };
+  }
+
+  static Callable<String> clientsTask(final List<String> languages, final GeneratorInput opts) {
+    return new Callable<String>() {
+      public String call() throws ApiException {
+        return Generator.generateClients(languages, opts);
+      }
+    };
+  }
+
+  static Callable<String> serverTask(final String framework, final GeneratorInput opts) {
+    return new Callable<String>() {
+      public String call() throws ApiException {
+        return Generator.generateServer(framework, opts);
+      }
+    };
+  }
+
+  static JobStatus status(JobQueue.Job job) {
+    JobStatus status = new JobStatus();
+    status.setId(job.getId());
+    status.setLanguage(job.getLanguage());
+    status.setStatus(job.getState().name().toLowerCase());
+    status.setSubmitted(job.getSubmitted());
+    if(job.getStarted() > 0)
+      status.setStarted(job.getStarted());
+    if(job.isFinished())
+      status.setFinished(job.getFinished());
+    if(job.getState() == JobQueue.State.DONE)
+      status.setLink(DOWNLOAD_LINK + job.getId());
+    if(job.getError() != null)
+      status.setMessage(job.getError().getMessage());
+    return status;
+  }
 }
@@ -16,12 +16,21 @@
 
 package com.wordnik.swagger.generator.util;
 
+import com.wordnik.swagger.online.GeneratorMetrics;
+
 import java.io.IOException;
+import java.util.*;
 
 import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
 public class ApiOriginFilter implements javax.servlet.Filter {
+  // the resources of SwaggerResource, anything else is labelled other
+  static final Set<String> ENDPOINTS = new HashSet<String>(Arrays.asList(
+    "clients", "servers", "download", "batch", "jobs", "metrics"));
+
   @Override
   public void doFilter(ServletRequest request, ServletResponse response,
       FilterChain chain) throws IOException, ServletException {
@@ -29,7 +38,70 @@ public class ApiOriginFilter implements javax.servlet.Filter {
     res.addHeader("Access-Control-Allow-Origin", "*");
     res.addHeader("Access-Control-Allow-Methods", "GET, POST, DELETE, PUT");
     res.addHeader("Access-Control-Allow-Headers", "Content-Type");
-    chain.doFilter(request, response);
+
+    StatusResponse status = new StatusResponse(res);
+    long started = System.nanoTime();
+    try {
+      chain.doFilter(request, status);
+    }
+    finally {
+      if(request instanceof HttpServletRequest) {
+        HttpServletRequest req = (HttpServletRequest) request;
+        GeneratorMetrics.getInstance().recordRequest(req.getMethod(), endpoint(req.getRequestURI()),
+          status.status, System.nanoTime() - started);
+      }
+    }
+  }
+
+  /**
+   * The resource below /gen, like clients or download, so that ids,
+   * languages and unknown paths don't end up as metric labels
+   */
+  static String endpoint(String uri) {
+    int gen = uri == null ? -1 : uri.indexOf("/gen/");
+    if(gen < 0)
+      return "other";
+    String path = uri.substring(gen + "/gen/".length());
+    int slash = path.indexOf('/');
+    String endpoint = slash < 0 ? path : path.substring(0, slash);
+    return ENDPOINTS.contains(endpoint) ? endpoint : "other";
+  }
+
+  /**
+   * Servlet 2.5 responses don't expose their status
+   */
+  static class StatusResponse extends HttpServletResponseWrapper {
+    int status = 200;
+
+    StatusResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    public void setStatus(int status) {
+      this.status = status;
+      super.setStatus(status);
+    }
+
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+      this.status = status;
+      super.setStatus(status, message);
+    }
+
+    public void sendError(int status) throws IOException {
+      this.status = status;
+      super.sendError(status);
+    }
+
+    public void sendError(int status, String message) throws IOException {
+      this.status = status;
+      super.sendError(status, message);
+    }
+
+    public void sendRedirect(String location) throws IOException {
+      this.status = 302;
+      super.sendRedirect(location);
+    }
   }
 
   @Override
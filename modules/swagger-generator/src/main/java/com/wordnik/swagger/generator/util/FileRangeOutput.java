@@ -0,0 +1,86 @@
+package com.wordnik.swagger.generator.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams a file, or a byte range of it, to the response with
+ * FileChannel.transferTo, so a download never holds more than the channel
+ * buffer in memory regardless of the file size
+ */
+public class FileRangeOutput implements StreamingOutput {
+  private final File file;
+  private final long start;
+  private final long count;
+
+  public FileRangeOutput(File file, long start, long count) {
+    this.file = file;
+    this.start = start;
+    this.count = count;
+  }
+
+  public void write(OutputStream output) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      WritableByteChannel target = Channels.newChannel(output);
+      long position = start;
+      long remaining = count;
+      while(remaining > 0) {
+        long written = channel.transferTo(position, remaining, target);
+        if(written <= 0)
+          break;
+        position += written;
+        remaining -= written;
+      }
+      output.flush();
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Parses a single <code>bytes=</code> range against the file length and
+   * returns the first and last byte, or null if the range can't be satisfied.
+   * Returns the whole file for headers it doesn't understand, including
+   * multiple ranges, which servers are allowed to ignore
+   */
+  public static long[] parseRange(String header, long length) {
+    long[] all = new long[] {0, length - 1};
+    if(header == null || !header.trim().startsWith("bytes=") || header.indexOf(',') >= 0)
+      return all;
+    String spec = header.trim().substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if(dash < 0)
+      return all;
+    try {
+      String first = spec.substring(0, dash).trim();
+      String last = spec.substring(dash + 1).trim();
+      if(first.length() == 0) {
+        // suffix range, the last n bytes
+        if(last.length() == 0)
+          return all;
+        long suffix = Long.parseLong(last);
+        if(suffix <= 0 || length == 0)
+          return null;
+        return new long[] {Math.max(length - suffix, 0), length - 1};
+      }
+      long start = Long.parseLong(first);
+      long end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+      if(start >= length || end < start)
+        return null;
+      return new long[] {start, end};
+    }
+    catch (NumberFormatException e) {
+      return all;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+import com.wordnik.swagger.online._
+import com.wordnik.swagger.util.Json
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+import scala.collection.JavaConverters._
+
+@RunWith(classOf[JUnitRunner])
+class BundleCacheTest extends FlatSpec with Matchers {
+  behavior of "BundleCache"
+
+  def directory() = new File(System.getProperty("java.io.tmpdir"), "codegen-bundle-cache-" + System.nanoTime())
+
+  def bundle(size: Int) = {
+    val file = File.createTempFile("codegen-test-", ".zip")
+    FileUtils.writeByteArrayToFile(file, new Array[Byte](size))
+    file
+  }
+
+  def key(name: String) = BundleCache.key(Json.mapper().readTree("{\"swagger\":\"2.0\"}"), name, null)
+
+  it should "evict the least recently used bundles once it is over its size" in {
+    val dir = directory()
+    val cache = new BundleCache(dir, 300)
+    try {
+      cache.put(key("a"), bundle(100))
+      cache.put(key("b"), bundle(100))
+      cache.put(key("c"), bundle(100))
+      cache.get(key("a")) should not be (null)
+      cache.put(key("d"), bundle(100))
+
+      cache.getEntryCount should be (3)
+      cache.getSize should be (300)
+      cache.get(key("b")) should be (null)
+      cache.get(key("a")) should not be (null)
+      new File(dir, key("b") + ".zip").exists should be (false)
+    }
+    finally {
+      FileUtils.deleteQuietly(dir)
+    }
+  }
+
+  it should "evict as many bundles as it takes to fit a large one" in {
+    val dir = directory()
+    val cache = new BundleCache(dir, 300)
+    try {
+      cache.put(key("a"), bundle(100))
+      cache.put(key("b"), bundle(100))
+      cache.put(key("c"), bundle(100))
+      cache.put(key("d"), bundle(250))
+
+      cache.getEntryCount should be (1)
+      cache.getSize should be (250)
+      cache.get(key("d")) should not be (null)
+    }
+    finally {
+      FileUtils.deleteQuietly(dir)
+    }
+  }
+
+  it should "not keep bundles larger than the whole cache" in {
+    val dir = directory()
+    val cache = new BundleCache(dir, 100)
+    try {
+      val large = bundle(101)
+      cache.put(key("a"), large) should be (large)
+      cache.getEntryCount should be (0)
+      large.delete()
+    }
+    finally {
+      FileUtils.deleteQuietly(dir)
+    }
+  }
+
+  it should "key specs by content regardless of field order and whitespace" in {
+    val spec = Json.mapper().readTree("{\"swagger\":\"2.0\",\"info\":{\"title\":\"pets\",\"version\":\"1\"},\"paths\":{}}")
+    val reordered = Json.mapper().readTree("{ \"paths\" : { },\n  \"info\" : { \"version\" : \"1\", \"title\" : \"pets\" },\n  \"swagger\" : \"2.0\" }")
+    val options = Map("b" -> "2", "a" -> "1").asJava
+
+    BundleCache.key(reordered, "java-client", Map("a" -> "1", "b" -> "2").asJava) should be (BundleCache.key(spec, "java-client", options))
+    BundleCache.key(spec, "php-client", options) should not be (BundleCache.key(spec, "java-client", options))
+    BundleCache.key(spec, "java-client", Map("a" -> "2").asJava) should not be (BundleCache.key(spec, "java-client", options))
+    val renamed = Json.mapper().readTree("{\"swagger\":\"2.0\",\"info\":{\"title\":\"stores\",\"version\":\"1\"},\"paths\":{}}")
+    BundleCache.key(renamed, "java-client", options) should not be (BundleCache.key(spec, "java-client", options))
+  }
+
+  it should "reload its bundles from disk in least recently used order" in {
+    val dir = directory()
+    try {
+      val cache = new BundleCache(dir, 1000)
+      cache.put(key("a"), bundle(100))
+      cache.put(key("b"), bundle(100))
+      cache.put(key("c"), bundle(100))
+      val now = System.currentTimeMillis()
+      new File(dir, key("b") + ".zip").setLastModified(now - 30000)
+      new File(dir, key("a") + ".zip").setLastModified(now - 20000)
+      new File(dir, key("c") + ".zip").setLastModified(now - 10000)
+      val unrelated = new File(dir, "notes.txt")
+      FileUtils.writeStringToFile(unrelated, "keep me")
+
+      val reloaded = new BundleCache(dir, 200)
+      reloaded.getEntryCount should be (2)
+      reloaded.get(key("b")) should be (null)
+      reloaded.get(key("a")) should not be (null)
+      reloaded.get(key("c")) should not be (null)
+      unrelated.exists should be (true)
+    }
+    finally {
+      FileUtils.deleteQuietly(dir)
+    }
+  }
+}
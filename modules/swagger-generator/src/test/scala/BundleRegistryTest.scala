@@ -0,0 +1,69 @@
+import com.wordnik.swagger.online._
+import com.wordnik.swagger.util.Json
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.File
+
+@RunWith(classOf[JUnitRunner])
+class BundleRegistryTest extends FlatSpec with Matchers {
+  behavior of "BundleRegistry"
+
+  def bundle() = {
+    val file = File.createTempFile("codegen-registry-", ".zip")
+    FileUtils.writeStringToFile(file, "bundle")
+    file
+  }
+
+  it should "expire bundles after their time to live" in {
+    val registry = new BundleRegistry(20, 10)
+    val file = bundle()
+    val id = registry.register(file, "pets")
+    registry.get(id).getFilename should be (file.getAbsolutePath)
+
+    Thread.sleep(50)
+    registry.get(id) should be (null)
+    registry.size should be (0)
+    file.exists should be (false)
+  }
+
+  it should "drop the oldest bundles over the maximum" in {
+    val registry = new BundleRegistry(60000, 2)
+    val files = List(bundle(), bundle(), bundle())
+    val ids = files.map(registry.register(_, "pets"))
+
+    registry.size should be (2)
+    registry.get(ids(0)) should be (null)
+    files(0).exists should be (false)
+    registry.get(ids(1)) should not be (null)
+    registry.get(ids(2)) should not be (null)
+    files.foreach(_.delete())
+  }
+
+  it should "delete the files it owns but not those of the bundle cache" in {
+    val dir = new File(System.getProperty("java.io.tmpdir"), "codegen-registry-cache-" + System.nanoTime())
+    BundleCache.configure(dir, 1024 * 1024)
+    try {
+      val key = BundleCache.key(Json.mapper().readTree("{\"swagger\":\"2.0\"}"), "java-client", null)
+      val cached = BundleCache.getInstance().put(key, bundle())
+      val owned = bundle()
+      val registry = new BundleRegistry(60000, 1)
+      registry.register(cached, "cached")
+      registry.register(owned, "owned")
+      registry.clear()
+
+      cached.exists should be (true)
+      BundleCache.getInstance().get(key) should be (cached)
+      owned.exists should be (false)
+    }
+    finally {
+      BundleCache.configure(new File(System.getProperty("java.io.tmpdir"), "codegen-bundles"), BundleCache.DEFAULT_MAX_SIZE)
+      FileUtils.deleteQuietly(dir)
+    }
+  }
+}
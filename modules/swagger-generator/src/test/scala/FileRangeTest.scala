@@ -0,0 +1,91 @@
+import com.wordnik.swagger.online._
+import com.wordnik.swagger.generator.resource.SwaggerResource
+import com.wordnik.swagger.generator.util.FileRangeOutput
+
+import org.apache.commons.io.FileUtils
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.io.{ByteArrayOutputStream, File}
+import javax.ws.rs.core.StreamingOutput
+
+@RunWith(classOf[JUnitRunner])
+class FileRangeTest extends FlatSpec with Matchers {
+  behavior of "byte range downloads"
+
+  def range(header: String) = Option(FileRangeOutput.parseRange(header, 100)).map(_.toList)
+
+  it should "read open ended and suffix ranges" in {
+    range("bytes=0-") should be (Some(List(0, 99)))
+    range("bytes=40-") should be (Some(List(40, 99)))
+    range("bytes=-10") should be (Some(List(90, 99)))
+    range("bytes=-200") should be (Some(List(0, 99)))
+    range("bytes=10-19") should be (Some(List(10, 19)))
+  }
+
+  it should "clamp ranges that end past the end of the file" in {
+    range("bytes=50-500") should be (Some(List(50, 99)))
+  }
+
+  it should "serve the whole file for headers it doesn't understand" in {
+    range(null) should be (Some(List(0, 99)))
+    range("items=0-10") should be (Some(List(0, 99)))
+    range("bytes=a-b") should be (Some(List(0, 99)))
+    range("bytes=5") should be (Some(List(0, 99)))
+    range("bytes=0-1,5-6") should be (Some(List(0, 99)))
+  }
+
+  it should "reject ranges that can't be satisfied" in {
+    range("bytes=100-") should be (None)
+    range("bytes=100-200") should be (None)
+    range("bytes=-0") should be (None)
+    range("bytes=20-10") should be (None)
+  }
+
+  def download(header: String)(check: (javax.ws.rs.core.Response, Array[Byte]) => Unit) = {
+    val file = File.createTempFile("codegen-range-", ".zip")
+    val content = (0 until 100).map(_.toByte).toArray
+    FileUtils.writeByteArrayToFile(file, content)
+    val id = BundleRegistry.getInstance().register(file, "range")
+    try {
+      check(new SwaggerResource().downloadFile(id, header), content)
+    }
+    finally {
+      file.delete()
+    }
+  }
+
+  def body(response: javax.ws.rs.core.Response) = {
+    val out = new ByteArrayOutputStream()
+    response.getEntity.asInstanceOf[StreamingOutput].write(out)
+    out.toByteArray
+  }
+
+  it should "send the whole bundle without a range" in {
+    download(null) { (response, content) =>
+      response.getStatus should be (200)
+      response.getHeaderString("Accept-Ranges") should be ("bytes")
+      body(response) should be (content)
+    }
+  }
+
+  it should "send partial content for a range" in {
+    download("bytes=-10") { (response, content) =>
+      response.getStatus should be (206)
+      response.getHeaderString("Content-Range") should be ("bytes 90-99/100")
+      response.getHeaderString("Content-Length") should be ("10")
+      body(response) should be (content.drop(90))
+    }
+  }
+
+  it should "answer unsatisfiable ranges with 416" in {
+    download("bytes=100-") { (response, content) =>
+      response.getStatus should be (416)
+      response.getHeaderString("Content-Range") should be ("bytes */100")
+      response.getEntity should be (null)
+    }
+  }
+}
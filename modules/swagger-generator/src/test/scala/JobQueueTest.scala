@@ -0,0 +1,115 @@
+import com.wordnik.swagger.online._
+import com.wordnik.swagger.generator.exception.TooManyRequestsException
+import com.wordnik.swagger.generator.resource.ExceptionWriter
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.FlatSpec
+import org.scalatest.Matchers
+
+import java.util.concurrent.{Callable, CountDownLatch, TimeUnit}
+
+@RunWith(classOf[JUnitRunner])
+class JobQueueTest extends FlatSpec with Matchers {
+  behavior of "JobQueue"
+
+  // jobs return no bundle, so nothing is registered for download
+  def waitFor(latch: CountDownLatch) = new Callable[String] {
+    def call(): String = {
+      latch.await(10, TimeUnit.SECONDS)
+      null
+    }
+  }
+
+  val done = new CountDownLatch(0)
+
+  it should "answer with 429 once the queue is full" in {
+    val queue = new JobQueue(1, 1, 10, 60000)
+    val latch = new CountDownLatch(1)
+    try {
+      val running = queue.submit("java", "java-client", waitFor(latch))
+      val queued = queue.submit("java", "java-client", waitFor(latch))
+      val rejected = intercept[TooManyRequestsException] {
+        queue.submit("java", "java-client", waitFor(latch))
+      }
+      val response = new ExceptionWriter().toResponse(rejected)
+      response.getStatus should be (429)
+      response.getHeaderString("Retry-After") should be ("5")
+
+      latch.countDown()
+      queue.await(running) should be (null)
+      queue.await(queued) should be (null)
+      queued.getState should be (JobQueue.State.DONE)
+    }
+    finally {
+      latch.countDown()
+      queue.shutdown()
+    }
+  }
+
+  it should "limit the jobs of each language" in {
+    val queue = new JobQueue(2, 10, 1, 60000)
+    val latch = new CountDownLatch(1)
+    try {
+      val java = queue.submit("java", "java-client", waitFor(latch))
+      intercept[TooManyRequestsException] {
+        queue.submit("java", "java-client", waitFor(latch))
+      }
+      queue.await(queue.submit("php", "php-client", waitFor(done)))
+
+      latch.countDown()
+      queue.await(java)
+      // the slot is released when the job finishes
+      queue.await(queue.submit("java", "java-client", waitFor(done)))
+    }
+    finally {
+      latch.countDown()
+      queue.shutdown()
+    }
+  }
+
+  it should "keep finished jobs for the retention period" in {
+    val queue = new JobQueue(1, 1, 2, 60000)
+    try {
+      val job = queue.submit("java", "java-client", waitFor(done))
+      queue.await(job)
+      queue.await(queue.submit("java", "java-client", waitFor(done)))
+      queue.get(job.getId) should be theSameInstanceAs (job)
+      job.isFinished should be (true)
+    }
+    finally {
+      queue.shutdown()
+    }
+  }
+
+  it should "drop finished jobs after the retention period" in {
+    val queue = new JobQueue(1, 1, 2, 0)
+    try {
+      val job = queue.submit("java", "java-client", waitFor(done))
+      queue.await(job)
+      Thread.sleep(10)
+      // expired jobs are purged when the next one is submitted
+      queue.await(queue.submit("java", "java-client", waitFor(done)))
+      queue.get(job.getId) should be (null)
+    }
+    finally {
+      queue.shutdown()
+    }
+  }
+
+  it should "rethrow what a job failed with" in {
+    val queue = new JobQueue(1, 1, 2, 60000)
+    try {
+      val job = queue.submit("java", "java-client", new Callable[String] {
+        def call(): String = throw new IllegalStateException("no templates")
+      })
+      intercept[Exception] {
+        queue.await(job)
+      }.getMessage should include ("no templates")
+      job.getState should be (JobQueue.State.FAILED)
+    }
+    finally {
+      queue.shutdown()
+    }
+  }
+}